@@ -0,0 +1,70 @@
+package qirkat;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks of single-threaded AI searches to fixed depths over the
+ *  positions of SearchBenchmark.POSITIONS.  The transposition table is
+ *  cleared before each search, so that every search starts cold.
+ *  @author Adish Jain
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AIBenchmark {
+
+    /** Search depth. */
+    @Param({ "4", "6", "8" })
+    public int depth;
+
+    /** Index of the position in SearchBenchmark.POSITIONS. */
+    @Param({ "0", "1", "2", "3", "4", "5", "6", "7" })
+    public int position;
+
+    /** Set up a game in POSITION with an AI to move that searches to
+     *  DEPTH. */
+    @Setup
+    public void setUp() {
+        Board board = new Board();
+        _game = new Game(board,
+                         new ReaderSource(new StringReader(""), false),
+                         new TextReporter());
+        _game.doDepth(new String[] { Integer.toString(depth) });
+        Object[] pos = SearchBenchmark.POSITIONS[position];
+        board.setPieces((String) pos[0], (PieceColor) pos[1]);
+        _ai = new AI(_game, board.whoseMove());
+    }
+
+    /** Empty the transposition table. */
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        _game.transpositionTable().clear();
+    }
+
+    /** Search for a move. */
+    @Benchmark
+    public Object findMove() {
+        return _ai.findMove();
+    }
+
+    /** The game containing the position. */
+    private Game _game;
+    /** The AI searching. */
+    private AI _ai;
+}
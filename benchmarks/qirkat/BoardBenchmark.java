@@ -0,0 +1,105 @@
+package qirkat;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks of move generation, copying, and make/unmake on Boards,
+ *  over the positions of SearchBenchmark.POSITIONS.
+ *  @author Adish Jain
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardBenchmark {
+
+    /** Index of the position in SearchBenchmark.POSITIONS. */
+    @Param({ "0", "1", "2", "3", "4", "5", "6", "7" })
+    public int position;
+
+    /** Set up the board for POSITION and find its moves. */
+    @Setup
+    public void setUp() {
+        _board = new Board();
+        Object[] pos = SearchBenchmark.POSITIONS[position];
+        _board.setPieces((String) pos[0], (PieceColor) pos[1]);
+        _board = _board.searchBoard();
+        _moves = new Board.MoveList();
+        _rootMoves = new Board.MoveList();
+        _board.getMoves(_rootMoves);
+        _rootMoveObjects = _board.getMoves();
+    }
+
+    /** Generate the move codes of the position. */
+    @Benchmark
+    public int getMoves() {
+        _moves.clear();
+        _board.getMoves(_moves);
+        return _moves.size();
+    }
+
+    /** Generate the Moves of the position, as Game and Player do. */
+    @Benchmark
+    public Object getMoveObjects() {
+        return _board.getMoves();
+    }
+
+    /** Check whether the player on move has a capture. */
+    @Benchmark
+    public boolean jumpPossible() {
+        return _board.jumpPossible();
+    }
+
+    /** Copy the board. */
+    @Benchmark
+    public Object copy() {
+        return new Board(_board);
+    }
+
+    /** Check the legality of each legal move in turn. */
+    @Benchmark
+    public int legalMove() {
+        int legal = 0;
+        for (Move mov : _rootMoveObjects) {
+            if (_board.legalMove(mov)) {
+                legal += 1;
+            }
+        }
+        return legal;
+    }
+
+    /** Make and unmake each legal move in turn. */
+    @Benchmark
+    public long makeUndo() {
+        long keys = 0;
+        for (int i = 0; i < _rootMoves.size(); i += 1) {
+            _board.makeQuickMove(_rootMoves.get(i));
+            keys ^= _board.key();
+            _board.undo();
+        }
+        return keys;
+    }
+
+    /** The board benchmarked. */
+    private Board _board;
+    /** Reused list of moves. */
+    private Board.MoveList _moves;
+    /** The legal moves of _board. */
+    private Board.MoveList _rootMoves;
+    /** The legal moves of _board, as Moves. */
+    private ArrayList<Move> _rootMoveObjects;
+}
@@ -0,0 +1,73 @@
+package qirkat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks of converting Moves to and from text and move codes.
+ *  @author Adish Jain
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoveBenchmark {
+
+    /** The denotation of the move benchmarked. */
+    @Param({ "c2-c3", "a3-a5", "a3-a5-c3-e1", "e1-c1-c3-a3-a5" })
+    public String denotation;
+
+    /** Find the move denoted by DENOTATION. */
+    @Setup
+    public void setUp() {
+        _move = Move.parseMove(denotation);
+        _code = MoveCode.encode(_move);
+    }
+
+    /** Parse the move. */
+    @Benchmark
+    public Object parseMove() {
+        return Move.parseMove(denotation);
+    }
+
+    /** Convert the move to text. */
+    @Benchmark
+    public String moveToString() {
+        return _move.toString();
+    }
+
+    /** Find the square jumped over by the move's first leg. */
+    @Benchmark
+    public int jumpedIndex() {
+        return _move.jumpedIndex() + _move.jumpedCol() + _move.jumpedRow();
+    }
+
+    /** Convert the move to a move code. */
+    @Benchmark
+    public long encode() {
+        return MoveCode.encode(_move);
+    }
+
+    /** Convert the move's code back to the move. */
+    @Benchmark
+    public Object decode() {
+        return MoveCode.toMove(_code);
+    }
+
+    /** The move denoted by DENOTATION. */
+    private Move _move;
+    /** The code of _move. */
+    private long _code;
+}
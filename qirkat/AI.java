@@ -1,19 +1,78 @@
 package qirkat;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
 import static qirkat.PieceColor.*;
 
 /** A Player that computes its own moves.
+ *
+ *  With more than one search thread (see Game.searchThreads), the AI uses
+ *  "Lazy SMP": helper threads run the same iterative-deepening search as
+ *  the main thread, on their own copies of the board, sharing only the
+ *  transposition table.  They fill the table with results that the main
+ *  thread then finds instead of searching for itself.  Only the main
+ *  thread's result is used, so a one-thread search is deterministic.
+ *
+ *  The search is a negamax principal variation search (PVS): values are
+ *  from the point of view of the player to move, the first move at each
+ *  node is searched with the full window, and the rest with a null
+ *  window, being searched again only if they turn out to be better.
+ *  Each iteration of the iterative deepening starts with a narrow
+ *  "aspiration" window around the value found by the one before.  At
+ *  the nominal depth, a quiescence search follows captures until the
+ *  position is quiet before taking its static value.
+ *
+ *  Each node tries its moves in order of promise, so that alpha-beta
+ *  pruning cuts off as early as possible: first the best move recorded
+ *  for the position in the transposition table, then captures (longest
+ *  first), then the "killer" moves that most recently caused cutoffs at
+ *  the same ply, and then the rest by their history scores, which
+ *  accumulate each time a move from one square to another causes a
+ *  cutoff anywhere in the tree.
+ *
+ *  In positions covered by the game's opening book (see
+ *  Game.openingBook), the AI plays a move from the book instead of
+ *  searching.
  *  @author Adish Jain
  */
 class AI extends Player {
 
-    /** Maximum minimax search depth before going to static evaluation. */
-    private static final int MAX_DEPTH = 8;
-    /** A position magnitude indicating a win (for white if positive, black
-     *  if negative). */
-    private static final int WINNING_VALUE = Integer.MAX_VALUE - 1;
+    /** Default maximum minimax search depth before going to static
+     *  evaluation, when there is no time limit (see Game.searchDepth). */
+    static final int MAX_DEPTH = 8;
+    /** Maximum search depth when searching under a time limit. */
+    private static final int MAX_TIMED_DEPTH = 64;
+    /** Number of nodes searched between checks of the clock. */
+    private static final int NODES_PER_CLOCK_CHECK = 1024;
+    /** A position magnitude indicating a win (for the player to move if
+     *  positive, the opponent if negative). */
+    static final int WINNING_VALUE = Integer.MAX_VALUE - 1;
     /** A magnitude greater than a normal value. */
     private static final int INFTY = Integer.MAX_VALUE;
+    /** Ordering key of the hash move. */
+    private static final int HASH_MOVE_KEY = Integer.MAX_VALUE;
+    /** Ordering key of a capture, to which is added its number of
+     *  legs. */
+    private static final int CAPTURE_KEY = 1 << 30;
+    /** Ordering key of the most recent killer move at a ply, one more
+     *  than that of the one before. */
+    private static final int KILLER_KEY = 1 << 29;
+    /** Maximum number of plies of captures searched beyond the nominal
+     *  depth (see Searcher.quiesce). */
+    private static final int QUIESCENCE_PLIES = 8;
+    /** Half the width of the initial aspiration window around the value
+     *  of the previous iteration. */
+    private static final int ASPIRATION_WINDOW = 50;
+    /** Killer moves remembered per ply. */
+    private static final int KILLERS = 2;
+    /** History scores are halved when one reaches this value, keeping
+     *  them below KILLER_KEY and letting old scores fade. */
+    private static final int MAX_HISTORY = 1 << 28;
 
     /** A new AI for GAME that will play MYCOLOR. */
     AI(Game game, PieceColor myColor) {
@@ -22,112 +81,536 @@ class AI extends Player {
 
     @Override
     Move myMove() {
-        Main.startTiming();
-
-        Move move = findMove();
-        Main.endTiming();
+        Move move = game().openingBook().probe(board(), game());
+        boolean searched = move == null;
+        if (searched) {
+            game().beginSearch();
+            try {
+                game().startTiming();
+                move = findMove();
+                game().endTiming();
+            } finally {
+                game().endSearch();
+            }
+        }
 
-        System.out.println(myColor().toString()
-                + " moves " + move.toString() + ".");
+        game().reportMove("%s moves %s.", myColor(), move);
+        if (searched && _stats != null) {
+            game().reportMove("%s", _stats.toLine());
+        }
         return move;
     }
 
     /** Return a move for me from the current position, assuming there
      *  is a move. */
-    private Move findMove() {
-        Board b = new Board(board());
-        if (myColor() == WHITE) {
-            findMove(b, MAX_DEPTH, true, 1, -INFTY, INFTY);
-        } else {
-            findMove(b, MAX_DEPTH, true, -1, -INFTY, INFTY);
-        }
-        return _lastFoundMove;
+    Move findMove() {
+        return findMove(board());
     }
 
-    /** The move found by the last call to one of the ...FindMove methods
-     *  below. */
-    private Move _lastFoundMove;
-
-    /** Find a move from position BOARD and return its value, recording
-     *  the move found in _lastFoundMove iff SAVEMOVE. The move
-     *  should have maximal value or have value > BETA if SENSE==1,
-     *  and minimal value or value < ALPHA if SENSE==-1. Searches up to
-     *  DEPTH levels.  Searching at level 0 simply returns a static estimate
-     *  of the board value and does not set _lastMoveFound.
-     *  I referenced the Wikipedia alpha beta pruning article for this alg
-     */
-    private int findMove(Board board, int depth,
-                         boolean saveMove, int sense,
-                         int alpha, int beta) {
-        System.out.println(depth);
-        Move best = null;
-        int score = 0;
-        if (depth == 0) {
-            return staticScore(board);
-        } else {
-            if (sense == 1) {
-                int v = -INFTY;
-                for (Move mov : board.getMoves()) {
-                    Board newBoard = new Board(board);
-                    newBoard._whoseMove = BLACK;
-                    newBoard.makeQuickMove(mov);
-                    v = Math.max(v, findMove(newBoard, depth - 1,
-                            saveMove, -1, alpha, beta));
-                    int vTemp = findMove(newBoard, depth - 1,
-                            saveMove, -1, alpha, beta);
-                    if (vTemp > v) {
-                        v = vTemp;
-                        best = mov;
-                    }
-                    alpha = Math.max(beta, v);
-                    if (beta <= alpha) {
-                        best = mov;
+    /** Return a move for me from POSITION, assuming there is a move. */
+    Move findMove(Board position) {
+        long start = System.nanoTime();
+        Board b = position.searchBoard();
+        _evaluator = game().evaluator(myColor());
+        b.setEvaluator(_evaluator);
+        _nodesSearched = 0;
+        _value = 0;
+        _principalVariation.clear();
+        _stats = game().collectingStats() ? new SearchStats() : null;
+        Board.MoveList moves = new Board.MoveList();
+        b.getMoves(moves);
+        if (moves.size() == 1) {
+            return finishSearch(MoveCode.toMove(moves.get(0)), start);
+        }
+        _table = game().transpositionTable();
+        _table.newSearch();
+        long moveTime = game().moveTime();
+        _maxDepth = moveTime > 0 ? MAX_TIMED_DEPTH : game().searchDepth();
+        _timeLimited = moveTime > 0;
+        _deadline = System.currentTimeMillis() + moveTime;
+        _done = false;
+
+        int threads = game().searchThreads();
+        ArrayList<Searcher> helpers = new ArrayList<>();
+        ArrayList<Future<?>> helperResults = new ArrayList<>();
+        if (threads > 1) {
+            ExecutorService pool = game().searchPool();
+            for (int id = 1; id < threads; id += 1) {
+                Searcher helper =
+                    new Searcher(b.searchBoard(), id,
+                                 _stats == null ? null : new SearchStats());
+                helpers.add(helper);
+                helperResults.add(pool.submit(() -> {
+                    helper.search();
+                }));
+            }
+        }
+        Searcher main = new Searcher(b, 0, _stats);
+        long best = main.search();
+        _done = true;
+        _nodesSearched = main.nodes();
+        _value = main.value();
+        _principalVariation.clear();
+        main.principalVariation().toMoves(_principalVariation);
+        for (int i = 0; i < helpers.size(); i += 1) {
+            try {
+                helperResults.get(i).get();
+            } catch (InterruptedException | ExecutionException excp) {
+                throw new IllegalStateException("search thread failed",
+                                                excp);
+            }
+            _nodesSearched += helpers.get(i).nodes();
+            if (_stats != null) {
+                _stats.add(helpers.get(i).stats());
+            }
+        }
+        return finishSearch(MoveCode.toMove(best), start);
+    }
+
+    /** Complete the statistics, if any, of a search begun at time START
+     *  (as from System.nanoTime) that found MOVE, and return MOVE. */
+    private Move finishSearch(Move move, long start) {
+        if (_stats != null) {
+            _stats.finish(_nodesSearched, System.nanoTime() - start, move,
+                          _principalVariation);
+            game().setLastSearchStats(_stats);
+        }
+        return move;
+    }
+
+    /** Return the statistics of the last call to findMove, or null if
+     *  statistics were not being collected (see Game.collectingStats). */
+    SearchStats stats() {
+        return _stats;
+    }
+
+    /** Return the number of positions visited by all threads during the
+     *  last call to findMove. */
+    long nodesSearched() {
+        return _nodesSearched;
+    }
+
+    /** Return the value of the position searched by the last call to
+     *  findMove, from the point of view of the player to move there, as
+     *  found by the last completed iteration of the search (0 if there
+     *  was only one legal move, and so no search). */
+    int value() {
+        return _value;
+    }
+
+    /** Return the principal variation found by the last call to
+     *  findMove: the best line of play found from the position searched
+     *  (starting with the move returned), to the end of the last
+     *  completed iteration of the search.  Empty if there was only one
+     *  legal move. */
+    List<Move> principalVariation() {
+        return Collections.unmodifiableList(_principalVariation);
+    }
+
+    /** Evaluator of positions in the current search. */
+    private Evaluator _evaluator;
+    /** Table of earlier search results, shared with the rest of the
+     *  game and among search threads.  Its keys are those of the
+     *  positions exclusive-or'ed with the key of _evaluator, so that
+     *  AIs using different evaluators do not share results. */
+    private TranspositionTable _table;
+    /** Depth of the last iteration of the current search. */
+    private int _maxDepth;
+    /** True iff the current search is limited by the clock. */
+    private boolean _timeLimited;
+    /** Time (as from System.currentTimeMillis) at which a timed search
+     *  must stop. */
+    private long _deadline;
+    /** Set when the main search thread has finished, telling helper
+     *  threads to stop. */
+    private volatile boolean _done;
+    /** Total positions visited during the last search. */
+    private long _nodesSearched;
+    /** Value found by the last search. */
+    private int _value;
+    /** Statistics of the last search, or null if not collected. */
+    private SearchStats _stats;
+    /** Principal variation found by the last search. */
+    private final ArrayList<Move> _principalVariation = new ArrayList<>();
+
+    /** One thread's share of a search: an iterative-deepening principal
+     *  variation search of its own board. */
+    private class Searcher {
+
+        /** A searcher of BOARD, counting into STATS unless it is null.
+         *  Thread 0 is the main thread; others are helpers, which begin
+         *  at staggered depths so that the threads tend to work on
+         *  different parts of the tree. */
+        Searcher(Board board, int id, SearchStats stats) {
+            _board = board;
+            _id = id;
+            _stats = stats;
+            int plies = _maxDepth + QUIESCENCE_PLIES + 1;
+            _moveLists = new Board.MoveList[plies];
+            _moveKeys = new int[plies][];
+            _pv = new long[plies][];
+            for (int i = 0; i < plies; i += 1) {
+                _moveLists[i] = new Board.MoveList();
+                _moveKeys[i] = new int[0];
+                _pv[i] = new long[Math.max(_maxDepth - i, 0)];
+            }
+            _pvLength = new int[plies];
+            _killers = new long[plies][KILLERS];
+        }
+
+        /** Search to successively greater depths until reaching the
+         *  maximum depth, running out of time, finding a forced result,
+         *  or (for helpers) being told the main thread is done.  Each
+         *  iteration after the first starts with an aspiration window
+         *  around the previous iteration's value, widening it and
+         *  searching again whenever the value falls outside it.  Return
+         *  the code of the best move found by the last completed
+         *  iteration. */
+        long search() {
+            long best = MoveCode.NONE;
+            int value = 0;
+            _lastFoundMove = MoveCode.NONE;
+            _principalVariation.clear();
+            for (int depth = 1 + _id % 2; depth <= _maxDepth; depth += 1) {
+                _interruptible = _id > 0 || (_timeLimited && depth > 1);
+                _stopped = false;
+                long start = System.nanoTime();
+                long window = ASPIRATION_WINDOW;
+                int alpha = -INFTY, beta = INFTY;
+                if (!_principalVariation.isEmpty()
+                    && Math.abs(value) < WINNING_VALUE) {
+                    alpha = (int) Math.max(value - window, -INFTY);
+                    beta = (int) Math.min(value + window, INFTY);
+                }
+                while (true) {
+                    value = search(_board, depth, 0, alpha, beta);
+                    if (_stopped) {
+                        break;
+                    } else if (value <= alpha) {
+                        alpha = (int) Math.max(alpha - window, -INFTY);
+                    } else if (value >= beta) {
+                        beta = (int) Math.min(beta + window, INFTY);
+                    } else {
                         break;
                     }
+                    window *= 2;
                 }
-                score = v;
-            } else {
-                int v = INFTY;
-                for (Move mov : board.getMoves()) {
-                    Board newBoard = new Board(board);
-                    newBoard._whoseMove = WHITE;
-                    newBoard.makeQuickMove(mov);
-                    v = Math.min(v, findMove(newBoard, depth - 1,
-                            saveMove, 1, alpha, beta));
-                    int vTemp = findMove(newBoard, depth - 1,
-                            saveMove, -1, alpha, beta);
-                    if (vTemp > v) {
-                        v = vTemp;
-                        best = mov;
+                if (_stopped) {
+                    break;
+                }
+                best = _lastFoundMove;
+                _value = value;
+                if (_stats != null) {
+                    _stats.iteration(depth, System.nanoTime() - start,
+                                     _nodes);
+                }
+                _principalVariation.clear();
+                for (int i = 0; i < _pvLength[0]; i += 1) {
+                    _principalVariation.add(_pv[0][i]);
+                }
+                if (Math.abs(value) == WINNING_VALUE) {
+                    break;
+                }
+            }
+            return best;
+        }
+
+        /** Return the number of positions I have visited. */
+        long nodes() {
+            return _nodes;
+        }
+
+        /** Return the value found by my last completed iteration. */
+        int value() {
+            return _value;
+        }
+
+        /** Return my statistics, or null if I am not collecting any. */
+        SearchStats stats() {
+            return _stats;
+        }
+
+        /** Return the principal variation found by my last completed
+         *  iteration. */
+        Board.MoveList principalVariation() {
+            return _principalVariation;
+        }
+
+        /** Return the value of the position BOARD, PLY moves from the
+         *  root, from the point of view of the player to move, searching
+         *  DEPTH more moves before going to quiescence search.  The
+         *  result is exact if it lies strictly between ALPHA and BETA;
+         *  otherwise it is an upper bound (if <= ALPHA) or lower bound
+         *  (if >= BETA).  After the first move at a node, the others are
+         *  searched with a null window that only shows whether they are
+         *  better than the best so far, and are searched again with the
+         *  full window only if they are.
+         *
+         *  Results are recorded in, and (except along the principal
+         *  variation) when deep enough taken from, _table.  At the root,
+         *  the move found by the previous iteration is tried first, and
+         *  the best move is recorded in _lastFoundMove if its value is
+         *  above ALPHA.  When the value is exact, _pv[PLY] holds the
+         *  principal variation from BOARD.  Returns early, with _stopped
+         *  set and nothing recorded, if time runs out or the search is
+         *  over.  I referenced the Wikipedia alpha beta pruning article
+         *  for this alg
+         */
+        private int search(Board board, int depth, int ply,
+                           int alpha, int beta) {
+            _nodes += 1;
+            if (_interruptible && _nodes % NODES_PER_CLOCK_CHECK == 0
+                && (_id > 0 && _done
+                    || _timeLimited
+                       && System.currentTimeMillis() >= _deadline)) {
+                _stopped = true;
+            }
+            if (_stopped) {
+                return 0;
+            }
+            _pvLength[ply] = 0;
+            if (depth == 0) {
+                return quiesce(board, ply, QUIESCENCE_PLIES, alpha, beta);
+            }
+            boolean pvNode = (long) beta - alpha > 1;
+            int alpha0 = alpha;
+            long key = board.key() ^ _evaluator.key();
+            long entry = _table.probe(key, _hashMove);
+            if (_stats != null) {
+                _stats.probe(entry != 0);
+            }
+            long hashMove = _hashMove[0];
+            if (entry != 0) {
+                if (!pvNode && TranspositionTable.depth(entry) >= depth) {
+                    int score = TranspositionTable.score(entry);
+                    TranspositionTable.Bound bound =
+                        TranspositionTable.bound(entry);
+                    if (bound == TranspositionTable.Bound.EXACT
+                        || bound == TranspositionTable.Bound.LOWER
+                           && score >= beta
+                        || bound == TranspositionTable.Bound.UPPER
+                           && score <= alpha) {
+                        if (_stats != null) {
+                            _stats.tableCutoff();
+                        }
+                        return score;
                     }
-                    beta = Math.min(alpha, v);
-                    if (beta <= alpha) {
-                        best = mov;
-                        break;
+                }
+            }
+
+            if (ply == 0 && _lastFoundMove != MoveCode.NONE) {
+                hashMove = _lastFoundMove;
+            }
+            Board.MoveList moves = _moveLists[ply];
+            moves.clear();
+            board.getMoves(moves);
+            if (moves.isEmpty()) {
+                return -WINNING_VALUE;
+            }
+            orderMoves(moves, hashMove, ply);
+
+            long best = MoveCode.NONE;
+            int v = -INFTY;
+            for (int i = 0; i < moves.size(); i += 1) {
+                long mov = moves.get(i);
+                board.makeQuickMove(mov);
+                int score;
+                if (i == 0) {
+                    score = -search(board, depth - 1, ply + 1,
+                                    -beta, -alpha);
+                } else {
+                    score = -search(board, depth - 1, ply + 1,
+                                    -alpha - 1, -alpha);
+                    if (score > alpha && score < beta) {
+                        score = -search(board, depth - 1, ply + 1,
+                                        -beta, -alpha);
+                    }
+                }
+                board.undo();
+                if (_stopped) {
+                    return 0;
+                }
+                if (score > v) {
+                    v = score;
+                    best = mov;
+                    if (score > alpha) {
+                        alpha = score;
+                        _pv[ply][0] = mov;
+                        System.arraycopy(_pv[ply + 1], 0, _pv[ply], 1,
+                                         _pvLength[ply + 1]);
+                        _pvLength[ply] = _pvLength[ply + 1] + 1;
+                        if (alpha >= beta) {
+                            recordCutoff(mov, depth, ply);
+                            if (_stats != null) {
+                                _stats.cutoff(i);
+                            }
+                            break;
+                        }
+                    }
+                }
+            }
+
+            TranspositionTable.Bound bound;
+            if (v <= alpha0) {
+                bound = TranspositionTable.Bound.UPPER;
+            } else if (v >= beta) {
+                bound = TranspositionTable.Bound.LOWER;
+            } else {
+                bound = TranspositionTable.Bound.EXACT;
+            }
+            _table.store(key, depth, bound, v, best);
+            if (ply == 0 && v > alpha0) {
+                _lastFoundMove = best;
+            }
+            return v;
+        }
+
+        /** Return the value of the position BOARD, PLY moves from the
+         *  root, from the point of view of the player to move, as for
+         *  search, but searching only captures, and only until reaching a
+         *  quiet position in which the player to move has none, so that
+         *  the static value is not taken in the middle of an exchange.
+         *  Since captures are compulsory, the player to move cannot
+         *  "stand pat" on the static value while a capture is pending, so
+         *  that value is used only for quiet positions and once LIMIT
+         *  more plies of captures have been searched.  A quiet position
+         *  in which the player to move cannot move at all is lost, as in
+         *  search. */
+        private int quiesce(Board board, int ply, int limit,
+                            int alpha, int beta) {
+            boolean jump = board.jumpPossible();
+            if (!jump && !board.stepPossible()) {
+                return -WINNING_VALUE;
+            } else if (limit == 0 || !jump) {
+                return staticScore(board);
+            }
+            Board.MoveList moves = _moveLists[ply];
+            moves.clear();
+            board.getMoves(moves);
+            orderMoves(moves, MoveCode.NONE, ply);
+            int v = -INFTY;
+            for (int i = 0; i < moves.size(); i += 1) {
+                board.makeQuickMove(moves.get(i));
+                _nodes += 1;
+                if (_stats != null) {
+                    _stats.quiescenceNode();
+                }
+                int score =
+                    -quiesce(board, ply + 1, limit - 1, -beta, -alpha);
+                board.undo();
+                if (score > v) {
+                    v = score;
+                    if (v > alpha) {
+                        alpha = v;
+                        if (alpha >= beta) {
+                            break;
+                        }
                     }
                 }
-                score = v;
             }
+            return v;
+        }
+
+        /** Sort MOVES, generated for a node at PLY, into the order in
+         *  which to search them, given that HASHMOVE is the best move
+         *  recorded for the position (or NONE). */
+        private void orderMoves(Board.MoveList moves, long hashMove,
+                                int ply) {
+            if (_moveKeys[ply].length < moves.size()) {
+                _moveKeys[ply] = new int[2 * moves.size()];
+            }
+            int[] keys = _moveKeys[ply];
+            long[] killers = _killers[ply];
+            for (int i = 0; i < moves.size(); i += 1) {
+                long mov = moves.get(i);
+                if (mov == hashMove) {
+                    keys[i] = HASH_MOVE_KEY;
+                } else if (MoveCode.isJump(mov)) {
+                    keys[i] = CAPTURE_KEY + MoveCode.legs(mov);
+                } else if (mov == killers[0]) {
+                    keys[i] = KILLER_KEY + 1;
+                } else if (mov == killers[1]) {
+                    keys[i] = KILLER_KEY;
+                } else {
+                    keys[i] = _history[MoveCode.from(mov)][MoveCode.to(mov)];
+                }
+            }
+            moves.sort(keys);
         }
-        if (saveMove) {
-            _lastFoundMove = best;
+
+        /** Record that MOV, searched at PLY to DEPTH, caused a cutoff,
+         *  for the ordering of later moves.  Captures are already tried
+         *  early, so only other moves are recorded. */
+        private void recordCutoff(long mov, int depth, int ply) {
+            if (MoveCode.isJump(mov)) {
+                return;
+            }
+            long[] killers = _killers[ply];
+            if (killers[0] != mov) {
+                killers[1] = killers[0];
+                killers[0] = mov;
+            }
+            int[] history = _history[MoveCode.from(mov)];
+            int to = MoveCode.to(mov);
+            history[to] += depth * depth;
+            if (history[to] >= MAX_HISTORY) {
+                for (int[] row : _history) {
+                    for (int k = 0; k < row.length; k += 1) {
+                        row[k] /= 2;
+                    }
+                }
+            }
         }
-        return score;
+
+        /** The board I search. */
+        private final Board _board;
+        /** _moveLists[P] holds the moves generated for a node at ply P.
+         *  Only one such node at a time is being searched, so the lists
+         *  are reused throughout the search, rather than being allocated
+         *  at each node. */
+        private final Board.MoveList[] _moveLists;
+        /** _moveKeys[P] holds the ordering keys of _moveLists[P]. */
+        private final int[][] _moveKeys;
+        /** _killers[P] holds the killer moves at ply P, most recent
+         *  first. */
+        private final long[][] _killers;
+        /** _history[K0][K1] is the history score of moves from square K0
+         *  to square K1. */
+        private final int[][] _history =
+            new int[Move.SIDE * Move.SIDE][Move.SIDE * Move.SIDE];
+        /** _pv[P][0 .. _pvLength[P]-1] is the principal variation
+         *  found from the node at ply P most recently searched. */
+        private final long[][] _pv;
+        /** Lengths of the variations in _pv. */
+        private final int[] _pvLength;
+        /** The principal variation of my last completed iteration. */
+        private final Board.MoveList _principalVariation =
+            new Board.MoveList();
+        /** My thread number (0 for the main thread). */
+        private final int _id;
+        /** The code of the best move found by the last search of the
+         *  root. */
+        private long _lastFoundMove;
+        /** True iff the current iteration may be cut short. */
+        private boolean _interruptible;
+        /** True iff the current iteration was cut short, in which case
+         *  its results are incomplete and must be discarded. */
+        private boolean _stopped;
+        /** Positions visited. */
+        private long _nodes;
+        /** Holds the best move found by the last probe of _table. */
+        private final long[] _hashMove = new long[1];
+        /** Value found by my last completed iteration. */
+        private int _value;
+        /** Statistics I collect, or null if none. */
+        private final SearchStats _stats;
     }
 
-    /** Return a heuristic value for BOARD. */
+    /** Return a heuristic value for BOARD from the point of view of the
+     *  player to move. */
     private int staticScore(Board board) {
-        int numWhites = 0;
-        int numBlacks = 0;
-        final int twentyFive = 25;
-        for (int i = 0; i < twentyFive; i++) {
-            if (board.getBoardRep().get(i).getTile() == WHITE) {
-                numWhites += 1;
-            } else if (board.getBoardRep().get(i).getTile() == BLACK) {
-                numBlacks += 1;
-            }
-        }
-        return numWhites - numBlacks;
+        int score = _evaluator.evaluate(board);
+        return board.whoseMove() == WHITE ? score : -score;
     }
 
 }
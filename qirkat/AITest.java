@@ -0,0 +1,105 @@
+package qirkat;
+
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Tests of the AI's search.
+ *  @author Adish Jain
+ */
+public class AITest {
+
+    /** Return a game with no commands that searches to DEPTH. */
+    private static Game game(int depth) {
+        return game(new Board(), depth);
+    }
+
+    /** Return a game on BOARD with no commands that searches to
+     *  DEPTH. */
+    private static Game game(Board board, int depth) {
+        Game game = new Game(board,
+                             new ReaderSource(new StringReader(""), false),
+                             new TextReporter());
+        game.doDepth(new String[] { Integer.toString(depth) });
+        return game;
+    }
+
+    @Test
+    public void testPrincipalVariation() {
+        final int depth = 6;
+        for (Object[] position : SearchBenchmark.POSITIONS) {
+            Board board = new Board();
+            Game game = game(board, depth);
+            board.setPieces((String) position[0], (PieceColor) position[1]);
+            AI ai = new AI(game, board.whoseMove());
+            Move move = ai.findMove();
+            List<Move> pv = ai.principalVariation();
+            assertTrue(pv.size() <= depth);
+            assertSame(move, pv.get(0));
+            Board b = new Board(board);
+            for (Move mov : pv) {
+                assertTrue(mov + " is not legal", b.legalMove(mov));
+                b.makeMove(mov);
+            }
+            assertTrue(pv.size() == depth || b.gameOver());
+        }
+    }
+
+    @Test
+    public void testForcedMove() {
+        Board board = new Board();
+        Game game = game(board, 4);
+        board.setPieces("----- ----- --w-- --b-- -----", PieceColor.BLACK);
+        AI ai = new AI(game, PieceColor.BLACK);
+        assertEquals("c4-c2", ai.findMove().toString());
+        assertTrue(ai.principalVariation().isEmpty());
+    }
+
+    @Test
+    public void testQuiescence() {
+        Board board = new Board();
+        Game game = game(board, 1);
+        board.setPieces("w---- --w-- ----- --b-- -----", PieceColor.WHITE);
+        AI ai = new AI(game, PieceColor.WHITE);
+        assertNotEquals("c2-c3", ai.findMove().toString());
+    }
+
+    /** After a2-a3 (or after b1-b2 and the exchange that follows), Black
+     *  cannot move, which only the horizon's quiescence search sees. */
+    @Test
+    public void testBlockedAtHorizon() {
+        Board board = new Board();
+        Game game = game(board, 1);
+        board.setPieces("wwbww w---- ----- ----- -----", PieceColor.WHITE);
+        AI ai = new AI(game, PieceColor.WHITE);
+        ai.findMove();
+        assertEquals(AI.WINNING_VALUE, ai.value());
+    }
+
+    @Test
+    public void testStats() {
+        Game game = game(5);
+        AI ai = new AI(game, PieceColor.WHITE);
+        ai.findMove();
+        assertNull(ai.stats());
+
+        game.doStats(new String[] { "on" });
+        game.transpositionTable().clear();
+        Move move = ai.findMove();
+        SearchStats stats = ai.stats();
+        assertEquals(5, stats.depth());
+        assertEquals(ai.nodesSearched(), stats.nodes());
+        assertTrue(stats.quiescenceNodes() <= stats.nodes());
+        assertTrue(stats.hits() <= stats.probes());
+        assertTrue(stats.tableCutoffs() <= stats.hits());
+        assertTrue(stats.firstMoveCutoffRate() > 0
+                   && stats.firstMoveCutoffRate() <= 1);
+        assertEquals(5, stats.iterationMillis().length);
+        String line = stats.toLine();
+        assertTrue(line, line.startsWith("stats move=" + move + " depth=5 "
+                                         + "nodes=" + stats.nodes() + " "));
+        assertTrue(line, line.matches(".* pv=" + move + "(,\\S+)*"));
+    }
+}
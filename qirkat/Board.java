@@ -1,13 +1,11 @@
 package qirkat;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Formatter;
 import java.util.Observable;
 import java.util.Observer;
-import java.util.HashMap;
-import java.util.Stack;
-import java.util.Set;
-import java.util.Collection;
+import java.util.Random;
 import static qirkat.PieceColor.*;
 import static qirkat.Move.*;
 
@@ -19,7 +17,15 @@ import static qirkat.Move.*;
  *  number of the square in row-major order (with row 0 being the bottom row)
  *  counting from 0).
  *
- *  Moves on this board are denoted by Moves.
+ *  Moves on this board are denoted by Moves, or, in move generation and
+ *  search, by MoveCodes.
+ *
+ *  Observers are notified only of changes that are part of the game:
+ *  clear, setPieces, and makeMove.  Move generation and the
+ *  makeQuickMove/undo pairs used by a search never touch the observer
+ *  machinery, so their cost does not depend on how many views are
+ *  attached.  A search should run on searchBoard(), which has no
+ *  observers at all.
  *  @author Adish Jain.
  */
 class Board extends Observable {
@@ -27,7 +33,6 @@ class Board extends Observable {
     /** A new, cleared board at the start of the game. */
     Board() {
         clear();
-        boardStates.push(new Board(this));
     }
 
     /** A copy of B. */
@@ -35,6 +40,13 @@ class Board extends Observable {
         internalCopy(b);
     }
 
+    /** Return a new board holding my current position, not observed by
+     *  anything, for use in searches and other lookahead.  Changes to it
+     *  do not affect me or my observers. */
+    Board searchBoard() {
+        return new Board(this);
+    }
+
     /** Return a constant view of me (allows any access method, but no
      *  method that modifies it). */
     Board constantView() {
@@ -46,124 +58,12 @@ class Board extends Observable {
     void clear() {
         _whoseMove = WHITE;
         _gameOver = false;
-        blocks = new Integer[]
-            {0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
-             0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0};
-        board.put(0, new Tile(WHITE, this, true, false, true,
-                false, false, false, true, false,
-                true, false, true, false,
-                false, false, true, false));
-        board.put(1, new Tile(WHITE, this, true, true,
-                true, false, false, false,
-                false, false, true, false, true,
-                false, false, false, false, false));
-        board.put(2, new Tile(WHITE, this, true, true,
-                true, false, true, false, true, false,
-                true, true, true, false,
-                true, false, true, false));
-        board.put(3, new Tile(WHITE, this, true, true,
-                true, false, false, false, false, false,
-                 false, true, true, false, false,
-                false, false, false));
-        board.put(4, new Tile(WHITE, this, false, true,
-                true, false, true, false, false, false,
-                false, true, true, false, true,
-                false, false, false));
-        board.put(5, new Tile(WHITE, this, true, false,
-                true, true, false, false, false,
-                false, true, false,  true,  false,
-                false, false, false, false));
-        board.put(6, new Tile(WHITE, this, true, true,
-                true, true, true, true, true, true,
-                true, false, true, false,
-                false, false, true, false));
-        board.put(7, new Tile(WHITE, this, true, true,
-                true, true, false, false, false, false,
-                true, true, true, false, false,
-                false, false, false));
-        board.put(8, new Tile(WHITE, this, true, true,
-                true, true, true, true, true, true,
-                false, true, true, false,
-                true, false, false, false));
-        board.put(9, new Tile(WHITE, this, false, true,
-                true, true, false, false, false, false,
-                false, true, true, false,
-                false, false, false, false));
-        board.put(10, new Tile(BLACK, this, true, false,
-                true, true, false, false,
-                true,  true, true,  false,  true,
-                true, false, false, true, true));
-        board.put(11, new Tile(BLACK, this, true, true,
-                true, true, false, false, false, false,
-                true, false, true, true,
-                false, false, false, false));
-        board.put(12, new Tile(EMPTY, this, true, true,
-                true, true, true, true, true, true,
-                true, true, true, true,
-                true, true, true, true));
-        firstPut();
-    }
-
-    /**
-     * finish Clear().
-     */
-    void firstPut() {
-        final int seventeen = 17;
-        final int eighteen = 18;
-        final int nineteen = 19;
-        final int twenty = 20;
-        final int twentyOne = 21;
-        final int twentyTwo = 22;
-        final int twentyThree = 23;
-        final int twentyFour = 24;
-        board.put(13, new Tile(WHITE, this, true, true,
-                true, true, false, false, false, false,
-                false, true, true, true,
-                false, false, false, false));
-        board.put(14, new Tile(WHITE, this, false, true,
-                true, true, true, true, false, false,
-                false, true, true, true,
-                true, true, false, false));
-        board.put(15, new Tile(BLACK, this, true, false, true,
-                true, false, false, false, false,
-                true, false, false, true,
-                false, false, false, false));
-        board.put(16, new Tile(BLACK, this, true, true,
-                true, true, true, true, true, true,
-                true, false, false, true,
-                false, false, false, true));
-        board.put(seventeen,  new Tile(BLACK, this,  true,  true,
-                true, true, false, false, false, false,
-                true, true, false, true,
-                false, false, false, false));
-        board.put(eighteen,  new Tile(BLACK, this,  true,  true,
-                true, true, true, true, true, true,
-                false, true, false, true,
-                false, true, false, false));
-        board.put(nineteen,  new Tile(BLACK, this,  false,  true,
-                true, true, false, false, false, false,
-                false, true, false, true,
-                false, false, false, false));
-        board.put(twenty, new Tile(BLACK, this, true, false,
-                false, true, false, false, false, true,
-                true, false, false, true,
-                false, false, false, true));
-        board.put(twentyOne, new Tile(BLACK, this, true, true,
-                false, true, false, false, false, false,
-                true, false, false, true,
-                false, false, false, false));
-        board.put(twentyTwo, new Tile(BLACK, this, true, true,
-                false, true, false, true, false, true,
-                true, true, false, true,
-                false, true, false, true));
-        board.put(twentyThree, new Tile(BLACK, this, true, true,
-                false, true, false, false, false, false,
-                false, true, false, true,
-                false, false, false, false));
-        board.put(twentyFour, new Tile(BLACK, this, false, true,
-                false, true, false, true, false, false,
-                false, true, false, true,
-                false, true, false, false));
+        _whitePieces = INITIAL_WHITE;
+        _blackPieces = INITIAL_BLACK;
+        _noLeftMoves = _noRightMoves = 0;
+        _undoTop = 0;
+        _key = computeKey();
+        _positionalValue = computePositionalValue();
         setChanged();
         notifyObservers();
     }
@@ -185,37 +85,27 @@ class Board extends Observable {
         } else {
             this._whoseMove = BLACK;
         }
-        final int twentyFive = 25;
-        System.arraycopy(b.blocks, 0, this.blocks, 0, twentyFive);
-        Set<Integer> keys = b.board.keySet();
-        Object[] keysObjArr = keys.toArray();
-        Integer[] keysIntArr = new Integer[keysObjArr.length];
-        Integer[] newKeys = new Integer[keysObjArr.length];
-
-        Collection<Tile> values = b.board.values();
-        Object[] valuesObjArr = values.toArray();
-        Tile[] valuesArr = new Tile[valuesObjArr.length];
-        Tile[] newValues = new Tile[values.size()];
-
-        for (int k = 0; k < keysObjArr.length; k++) {
-            newKeys[k] = new Integer((Integer) keysObjArr[k]);
-        }
-        for (int v = 0; v < values.size(); v++) {
-            newValues[v] = new Tile((Tile) valuesObjArr[v]);
-        }
-
-        for (int i = 0; i < b.board.size(); i++) {
-            this.board.put(newKeys[i], newValues[i]);
-        }
+        _whitePieces = b._whitePieces;
+        _blackPieces = b._blackPieces;
+        _noLeftMoves = b._noLeftMoves;
+        _noRightMoves = b._noRightMoves;
+        _key = b._key;
+        _evaluator = b._evaluator;
+        _positionalValue = b._positionalValue;
+        _undoTop = 0;
     }
 
     @Override
     public boolean equals(Object o) {
         if (o instanceof Board) {
             Board b = (Board) o;
-            return (b.toString().equals(toString())
-                    && b.whoseMove() == _whoseMove
-                    && b._gameOver == _gameOver);
+            return b._key == _key
+                && b._whitePieces == _whitePieces
+                && b._blackPieces == _blackPieces
+                && b._noLeftMoves == _noLeftMoves
+                && b._noRightMoves == _noRightMoves
+                && b._whoseMove == _whoseMove
+                && b._gameOver == _gameOver;
         } else {
             return false;
         }
@@ -223,9 +113,112 @@ class Board extends Observable {
 
     @Override
     public int hashCode() {
-        return super.hashCode();
+        return (int) (_key ^ (_key >>> 32));
+    }
+
+    /** Return the Zobrist key of the current position: a 64-bit hash of
+     *  the pieces, the horizontal restrictions, and the player on move,
+     *  maintained incrementally as moves are made and undone. */
+    long key() {
+        return _key;
+    }
+
+    /** Return the Zobrist key of the current position, computed from
+     *  scratch. */
+    private long computeKey() {
+        long key = squareKeys(_whitePieces, PIECE_KEYS[WHITE.ordinal()])
+            ^ squareKeys(_blackPieces, PIECE_KEYS[BLACK.ordinal()])
+            ^ squareKeys(_noLeftMoves, NO_LEFT_KEYS)
+            ^ squareKeys(_noRightMoves, NO_RIGHT_KEYS);
+        return _whoseMove == BLACK ? key ^ BLACK_TO_MOVE_KEY : key;
+    }
+
+    /** Return the exclusive or of KEYS[K] over all squares K in SQUARES. */
+    private static long squareKeys(int squares, long[] keys) {
+        long result = 0;
+        while (squares != 0) {
+            result ^= keys[Integer.numberOfTrailingZeros(squares)];
+            squares &= squares - 1;
+        }
+        return result;
+    }
+
+
+    /** Return the evaluator whose positional values I keep track of. */
+    Evaluator evaluator() {
+        return _evaluator;
+    }
+
+    /** Make EVALUATOR the evaluator whose positional values I keep track
+     *  of (see positionalValue).  Does not notify observers. */
+    void setEvaluator(Evaluator evaluator) {
+        _evaluator = evaluator;
+        _positionalValue = computePositionalValue();
+    }
+
+    /** Return the sum of evaluator().squareValue(C, K) over all pieces
+     *  of color C on squares K, maintained incrementally as moves are
+     *  made and undone. */
+    int positionalValue() {
+        return _positionalValue;
+    }
+
+    /** Return positionalValue(), computed from scratch. */
+    private int computePositionalValue() {
+        int value = 0;
+        for (int k = 0; k <= MAX_INDEX; k += 1) {
+            PieceColor c = get(k);
+            if (c != EMPTY) {
+                value += _evaluator.squareValue(c, k);
+            }
+        }
+        return value;
+    }
+
+    /** Return the number of non-capturing moves the pieces of color C
+     *  could make if it were C's move, not counting the horizontal
+     *  limits or the requirement to capture when possible. */
+    int mobility(PieceColor c) {
+        int movers = pieces(c) & ~(c == WHITE ? LAST_ROW : FIRST_ROW);
+        int empty = pieces(EMPTY);
+        int backward = c == WHITE ? -1 : 1;
+        int count = 0;
+        for (int d = 0; d < DIRECTIONS; d += 1) {
+            if (ROW_STEP[d] != backward) {
+                count += Integer.bitCount(movers & STEP_SOURCES[d]
+                                          & shift(empty, DELTA[d]));
+            }
+        }
+        return count;
     }
 
+    /** Return true iff the player to move has a legal non-capturing move
+     *  (ignoring the requirement to capture when possible). */
+    boolean stepPossible() {
+        PieceColor c = whoseMove();
+        int movers = pieces(c) & ~(c == WHITE ? LAST_ROW : FIRST_ROW);
+        int empty = pieces(EMPTY);
+        int backward = c == WHITE ? -1 : 1;
+        for (int d = 0; d < DIRECTIONS; d += 1) {
+            int sources = movers;
+            if (d == RIGHT) {
+                sources &= ~_noRightMoves;
+            } else if (d == LEFT) {
+                sources &= ~_noLeftMoves;
+            }
+            if (ROW_STEP[d] != backward
+                && (sources & STEP_SOURCES[d] & shift(empty, DELTA[d])) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Return the number of pieces of color C that may not move back
+     *  horizontally. */
+    int restricted(PieceColor c) {
+        return Integer.bitCount(pieces(c) & (_noLeftMoves | _noRightMoves));
+    }
 
     /** Set my contents as defined by STR.  STR consists of 25 characters,
      *  each of which is b, w, or -, optionally interspersed with whitespace.
@@ -242,6 +235,8 @@ class Board extends Observable {
         if (!str.matches("[bw-]{25}")) {
             throw new IllegalArgumentException("bad board description");
         }
+        _noLeftMoves = _noRightMoves = 0;
+        _undoTop = 0;
 
         for (int k = 0; k < str.length(); k += 1) {
             switch (str.charAt(k)) {
@@ -260,6 +255,8 @@ class Board extends Observable {
         }
 
         _whoseMove = nextMove;
+        _key = computeKey();
+        _positionalValue = computePositionalValue();
 
         setChanged();
         notifyObservers();
@@ -281,7 +278,35 @@ class Board extends Observable {
     /** Return the current contents of the square at linearized index K. */
     PieceColor get(int k) {
         assert validSquare(k);
-        return board.get(k).getTile();
+        if ((_whitePieces & (1 << k)) != 0) {
+            return WHITE;
+        } else if ((_blackPieces & (1 << k)) != 0) {
+            return BLACK;
+        }
+        return EMPTY;
+    }
+
+    /** Return the set of squares holding pieces of color C as a bit mask,
+     *  in which bit K is set iff square K holds such a piece. */
+    int pieces(PieceColor c) {
+        switch (c) {
+        case WHITE:
+            return _whitePieces;
+        case BLACK:
+            return _blackPieces;
+        default:
+            return ALL_SQUARES & ~(_whitePieces | _blackPieces);
+        }
+    }
+
+    /** Return the number of pieces of color C on the board. */
+    int pieceCount(PieceColor c) {
+        return Integer.bitCount(pieces(c));
+    }
+
+    /** Return true iff bit K is set in the square mask SQUARES. */
+    private static boolean contains(int squares, int k) {
+        return (squares & (1 << k)) != 0;
     }
 
     /** Set get(C, R) to V, where 'a' <= C <= 'e', and
@@ -294,20 +319,71 @@ class Board extends Observable {
     /** Set get(K) to V, where K is the linearized index of a square. */
     private void set(int k, PieceColor v) {
         assert validSquare(k);
-        board.get(k).setTile(v);
+        int bit = 1 << k;
+        _whitePieces &= ~bit;
+        _blackPieces &= ~bit;
+        if (v == WHITE) {
+            _whitePieces |= bit;
+        } else if (v == BLACK) {
+            _blackPieces |= bit;
+        }
     }
 
-    /** Return true iff MOV is legal on the current board. */
+    /** Return true iff MOV is legal on the current board.  Checks MOV
+     *  directly against the position, without generating other moves. */
     boolean legalMove(Move mov) {
-        ArrayList<Move> possibleMoves = getMoves();
-        for (Move thisMove : possibleMoves) {
-            if (mov.toString().equals(thisMove.toString())) {
+        if (mov == null || gameOver()
+            || !contains(pieces(whoseMove()), mov.fromIndex())) {
+            return false;
+        }
+        if (mov.isJump()) {
+            return checkJump(mov, false);
+        }
+        return !mov.isVestigial() && legalStep(mov.fromIndex(),
+                                               mov.toIndex())
+            && !jumpPossible();
+    }
+
+    /** Return true iff MOV is one of CANDIDATES, a list of the legal
+     *  moves from the current position, as from getMoves().  Since there
+     *  is only one Move object for each move, this amounts to a search
+     *  by identity. */
+    static boolean legalMove(Move mov, ArrayList<Move> candidates) {
+        for (Move candidate : candidates) {
+            if (candidate == mov) {
                 return true;
             }
         }
         return false;
     }
 
+    /** Return true iff a non-capturing move from square K0 to square K1
+     *  by the player on move obeys the rules for direction and
+     *  horizontal movement, ignoring whether a capture is possible
+     *  instead.  Assumes K0 holds a piece of the player on move. */
+    private boolean legalStep(int k0, int k1) {
+        int forward = whoseMove() == WHITE ? 1 : -1;
+        if (Move.row(k0) == (whoseMove() == WHITE ? '5' : '1')
+            || !contains(pieces(EMPTY), k1)) {
+            return false;
+        }
+        int d = direction(NEIGHBOR, k0, k1);
+        return d >= 0 && ROW_STEP[d] != -forward
+            && !(d == RIGHT && contains(_noRightMoves, k0))
+            && !(d == LEFT && contains(_noLeftMoves, k0));
+    }
+
+    /** Return the direction D for which TABLE[K0][D] is K1, or -1 if
+     *  there is none.  TABLE is NEIGHBOR or LANDING. */
+    private static int direction(int[][] table, int k0, int k1) {
+        for (int d = 0; d < DIRECTIONS; d += 1) {
+            if (table[k0][d] == k1) {
+                return d;
+            }
+        }
+        return -1;
+    }
+
     /** Return a list of all legal moves from the current position. */
     ArrayList<Move> getMoves() {
         ArrayList<Move> result = new ArrayList<>();
@@ -317,6 +393,14 @@ class Board extends Observable {
 
     /** Add all legal moves from the current position to MOVES. */
     void getMoves(ArrayList<Move> moves) {
+        MoveList codes = new MoveList();
+        getMoves(codes);
+        codes.toMoves(moves);
+    }
+
+    /** Add the codes of all legal moves from the current position to
+     *  MOVES. */
+    void getMoves(MoveList moves) {
         if (gameOver()) {
             return;
         }
@@ -331,335 +415,64 @@ class Board extends Observable {
         }
     }
 
-    /** Add all legal non-capturing moves from the position
+    /** Add the codes of all legal non-capturing moves from the position
      *  with linearized index K to MOVES. */
-    private void getMoves(ArrayList<Move> moves, int k) {
-        Tile tileObj = board.get(k);
-        if (tileObj.getTile() == EMPTY
-                || tileObj.getTile() == whoseMove().opposite()) {
-            return;
-        }
-        final int twenty = 20;
-        if (k >= twenty && tileObj.getTile() == WHITE) {
+    private void getMoves(MoveList moves, int k) {
+        PieceColor piece = whoseMove();
+        if (!contains(pieces(piece), k)) {
             return;
         }
-        if (k < 5 && tileObj.getTile() == BLACK) {
+        int forward = piece == WHITE ? 1 : -1;
+        if (Move.row(k) == (piece == WHITE ? '5' : '1')) {
             return;
         }
-        if (tileObj.hasBottomSpace() && tileObj.getTile() != WHITE) {
-            if (board.get(k - 5).getTile() == EMPTY) {
-                char col0 = Move.col(k);
-                char row0 = Move.row(k);
-                char col1 = Move.col(k - 5);
-                char row1 = Move.row(k - 5);
-                Move moveToMake = Move.move(col0, row0, col1, row1);
-                moves.add(moveToMake);
-            }
-        }
-        if (tileObj.hasTopSpace() && tileObj.getTile() != BLACK) {
-            if (board.get(k + 5).getTile() == EMPTY) {
-                char col0 = Move.col(k);
-                char row0 = Move.row(k);
-                char col1 = Move.col(k + 5);
-                char row1 = Move.row(k + 5);
-                Move moveToMake = Move.move(col0, row0, col1, row1);
-                moves.add(moveToMake);
-            }
-        }
-        if (tileObj.hasRightSpace() && blocks[k] != 1) {
-            if (board.get(k + 1).getTile() == EMPTY) {
-                char col0 = Move.col(k);
-                char row0 = Move.row(k);
-                char col1 = Move.col(k + 1);
-                char row1 = Move.row(k + 1);
-                Move moveToMake = Move.move(col0, row0, col1, row1);
-                moves.add(moveToMake);
-            }
-        }
-        if (tileObj.hasLeftSpace() && blocks[k] != -1) {
-            if (board.get(k - 1).getTile() == EMPTY) {
-                char col0 = Move.col(k);
-                char row0 = Move.row(k);
-                char col1 = Move.col(k - 1);
-                char row1 = Move.row(k - 1);
-                Move moveToMake = Move.move(col0, row0, col1, row1);
-                moves.add(moveToMake);
-            }
-        }
-        finishGettingMoves(moves, k);
-    }
-
-    /** Add all legal non-capturing moves from the position
-     *  with linearized index K to MOVES. */
-    private void finishGettingMoves(ArrayList<Move> moves, int k) {
-        Tile tileObj = board.get(k);
-        if (tileObj.hasdiagonalLUSpace() && tileObj.getTile() != BLACK) {
-            if (board.get(k + 4).getTile() == EMPTY) {
-                char col0 = Move.col(k);
-                char row0 = Move.row(k);
-                char col1 = Move.col(k + 4);
-                char row1 = Move.row(k + 4);
-                Move moveToMake = Move.move(col0, row0, col1, row1);
-                moves.add(moveToMake);
+        int empty = pieces(EMPTY);
+        for (int d : STEP_ORDER) {
+            int to = NEIGHBOR[k][d];
+            if (to < 0 || ROW_STEP[d] == -forward || !contains(empty, to)) {
+                continue;
             }
-        }
-        if (tileObj.hasdiagonalRUSpace() && tileObj.getTile() != BLACK) {
-            if (board.get(k + 6).getTile() == EMPTY) {
-                char col0 = Move.col(k);
-                char row0 = Move.row(k);
-                char col1 = Move.col(k + 6);
-                char row1 = Move.row(k + 6);
-                Move moveToMake = Move.move(col0, row0, col1, row1);
-                moves.add(moveToMake);
-            }
-        }
-        if (tileObj.hasdiagonalLDSpace() && tileObj.getTile() != WHITE) {
-            if (board.get(k - 6).getTile() == EMPTY) {
-                char col0 = Move.col(k);
-                char row0 = Move.row(k);
-                char col1 = Move.col(k - 6);
-                char row1 = Move.row(k - 6);
-                Move moveToMake = Move.move(col0, row0, col1, row1);
-                moves.add(moveToMake);
-            }
-        }
-        if (tileObj.hasdiagonalRDSpace() && tileObj.getTile() != WHITE) {
-            if (board.get(k - 4).getTile() == EMPTY) {
-                char col0 = Move.col(k);
-                char row0 = Move.row(k);
-                char col1 = Move.col(k - 4);
-                char row1 = Move.row(k - 4);
-                Move moveToMake = Move.move(col0, row0, col1, row1);
-                moves.add(moveToMake);
+            if (d == RIGHT && contains(_noRightMoves, k)
+                || d == LEFT && contains(_noLeftMoves, k)) {
+                continue;
             }
+            moves.add(MoveCode.step(k, d));
         }
     }
 
-    /** Add all legal captures from the position with linearized index K
-     *  to MOVES. */
-    private void getJumps(ArrayList<Move> moves, int k) {
-        Tile tileObj = board.get(k);
-        PieceColor thisTile = tileObj.getTile();
-        if (thisTile == EMPTY || tileObj.getTile() == whoseMove().opposite()) {
-            return;
-        }
-        if (tileObj.hasBottomSpace() && tileObj.hasTwoBottomSpace()) {
-            if (board.get(k - 5).getTile() == thisTile.opposite()) {
-                Tile secBottomTile = board.get(k - 10);
-                if (secBottomTile.getTile() == EMPTY) {
-                    char col0 = Move.col(k);
-                    char row0 = Move.row(k);
-                    char col1 = Move.col(k - 10);
-                    char row1 = Move.row(k - 10);
-                    Move moveToMake = Move.move(col0, row0, col1, row1);
-                    ArrayList<Move> tails = getJumpsHelper(moveToMake);
-                    if (tails.size() == 0) {
-                        moves.add(moveToMake);
-                    } else {
-                        for (Move t: tails) {
-                            Move actualJump = move(moveToMake, t);
-                            moves.add(actualJump);
-                        }
-                    }
-                }
-            }
-        }
-        if (tileObj.hasTopSpace() && tileObj.hasTwoTopSpace()) {
-            if (board.get(k + 5).getTile() == thisTile.opposite()) {
-                if (board.get(k + 10).getTile() == EMPTY) {
-                    char col0 = Move.col(k);
-                    char row0 = Move.row(k);
-                    char col1 = Move.col(k + 10);
-                    char row1 = Move.row(k + 10);
-                    Move moveToMake = Move.move(col0, row0, col1, row1);
-                    ArrayList<Move> tails = getJumpsHelper(moveToMake);
-                    if (tails.size() == 0) {
-                        moves.add(moveToMake);
-                    } else {
-                        for (Move t: tails) {
-                            Move actualJump = move(moveToMake, t);
-                            moves.add(actualJump);
-                        }
-                    }
-                }
-            }
-        }
-        continueGetJumpsOne(moves, k);
-    }
-
-    /**
-     * continue getting jumps.
-     * @param moves Move
-     * @param k int
-     */
-    private void continueGetJumpsOne(ArrayList<Move> moves, int k) {
-        Tile tileObj = board.get(k);
-        PieceColor thisTile = tileObj.getTile();
-        if (tileObj.hasRightSpace() && tileObj.hasTwoRightSpace()) {
-            if (board.get(k + 1).getTile() == thisTile.opposite()) {
-                Tile secRightTile = board.get(k + 2);
-                if (secRightTile.getTile() == EMPTY) {
-                    char col0 = Move.col(k);
-                    char row0 = Move.row(k);
-                    char col1 = Move.col(k + 2);
-                    char row1 = Move.row(k + 2);
-                    Move moveToMake = Move.move(col0, row0, col1, row1);
-                    ArrayList<Move> tails = getJumpsHelper(moveToMake);
-                    if (tails.size() == 0) {
-                        moves.add(moveToMake);
-                    } else {
-                        for (Move t: tails) {
-                            Move actualJump = move(moveToMake, t);
-                            moves.add(actualJump);
-                        }
-                    }
-                }
-            }
-        }
-        if (tileObj.hasLeftSpace() && tileObj.hasTwoLeftSpace()) {
-            if (board.get(k - 1).getTile() == thisTile.opposite()) {
-                Tile secLeftTile = board.get(k - 2);
-                if (secLeftTile.getTile() == EMPTY) {
-                    char col0 = Move.col(k);
-                    char row0 = Move.row(k);
-                    char col1 = Move.col(k - 2);
-                    char row1 = Move.row(k - 2);
-                    Move moveToMake = Move.move(col0, row0, col1, row1);
-                    ArrayList<Move> tails = getJumpsHelper(moveToMake);
-                    if (tails.size() == 0) {
-                        moves.add(moveToMake);
-                    } else {
-                        for (Move t: tails) {
-                            Move actualJump = move(moveToMake, t);
-                            moves.add(actualJump);
-                        }
-                    }
-                }
-            }
-        }
-        continueGetJumpsTwo(moves, k);
-    }
-
-    /** Continues adding all legal captures
-     * from the position with linearized index K
-     *  to MOVES. */
-    private void continueGetJumpsTwo(ArrayList<Move> moves, int k) {
-        Tile tileObj = board.get(k);
-        PieceColor thisTile = tileObj.getTile();
-        if (tileObj.hasdiagonalLUSpace() && tileObj.hasTwoDiagonalLUSpace()) {
-            Tile leftUpper = board.get(k + 4);
-            if (leftUpper.getTile() == thisTile.opposite()) {
-                Tile secLUSpace = board.get(k + 8);
-                if (secLUSpace.getTile() == EMPTY) {
-                    char col0 = Move.col(k);
-                    char row0 = Move.row(k);
-                    char col1 = Move.col(k + 8);
-                    char row1 = Move.row(k + 8);
-                    Move moveToMake = Move.move(col0, row0, col1, row1);
-                    ArrayList<Move> tails = getJumpsHelper(moveToMake);
-                    if (tails.size() == 0) {
-                        moves.add(moveToMake);
-                    } else {
-                        for (Move t: tails) {
-                            Move actualJump = move(moveToMake, t);
-                            moves.add(actualJump);
-                        }
-                    }
-                }
-            }
-        }
-        if (tileObj.hasdiagonalLDSpace() && tileObj.hasTwoDiagonalLDSpace()) {
-            Tile leftDown = board.get(k - 6);
-            if (leftDown.getTile() == thisTile.opposite()) {
-                Tile secLDSpace = board.get(k - 12);
-                if (secLDSpace.getTile() == EMPTY) {
-                    char col0 = Move.col(k);
-                    char row0 = Move.row(k);
-                    char col1 = Move.col(k - 12);
-                    char row1 = Move.row(k - 12);
-                    Move moveToMake = Move.move(col0, row0, col1, row1);
-                    ArrayList<Move> tails = getJumpsHelper(moveToMake);
-                    if (tails.size() == 0) {
-                        moves.add(moveToMake);
-                    } else {
-                        for (Move t: tails) {
-                            Move actualJump = move(moveToMake, t);
-                            moves.add(actualJump);
-                        }
-                    }
-                }
-            }
+    /** Add the codes of all legal captures from the position with
+     *  linearized index K to MOVES. */
+    private void getJumps(MoveList moves, int k) {
+        if (contains(pieces(whoseMove()), k)) {
+            getJumps(moves, MoveCode.NONE, k);
         }
-        continueGetJumpsThree(moves, k);
     }
 
-    /**
-     * continue getting jumps.
-     * @param moves Move
-     * @param k int
-     */
-    private void continueGetJumpsThree(ArrayList<Move> moves, int k) {
-        Tile tileObj = board.get(k);
-        PieceColor thisTile = tileObj.getTile();
-        if (tileObj.hasdiagonalRUSpace() && tileObj.hasTwoDiagonalRUSpace()) {
-            Tile rightUpper = board.get(k + 6);
-            if (rightUpper.getTile() == thisTile.opposite()) {
-                Tile secRUSpace = board.get(k + 12);
-                if (secRUSpace.getTile() == EMPTY) {
-                    char col0 = Move.col(k);
-                    char row0 = Move.row(k);
-                    char col1 = Move.col(k + 12);
-                    char row1 = Move.row(k + 12);
-                    Move moveToMake = Move.move(col0, row0, col1, row1);
-                    ArrayList<Move> tails = getJumpsHelper(moveToMake);
-                    if (tails.size() == 0) {
-                        moves.add(moveToMake);
-                    } else {
-                        for (Move t: tails) {
-                            Move actualJump = move(moveToMake, t);
-                            moves.add(actualJump);
-                        }
-                    }
-                }
+    /** Add to MOVES the codes of all complete jumps that begin with the
+     *  (possibly empty) jump PREFIX, which has brought a piece of the
+     *  player on move to square K.  The board is left as it was found. */
+    private void getJumps(MoveList moves, long prefix, int k) {
+        int theirs = pieces(whoseMove().opposite());
+        int empty = pieces(EMPTY);
+        for (int d = 0; d < DIRECTIONS; d += 1) {
+            int to = LANDING[k][d];
+            if (to < 0 || !contains(theirs, NEIGHBOR[k][d])
+                || !contains(empty, to)) {
+                continue;
             }
-        }
-        if (tileObj.hasdiagonalRDSpace() && tileObj.hasTwoDiagonalRDSpace()) {
-            Tile rightDown = board.get(k - 4);
-            if (rightDown.getTile() == thisTile.opposite()) {
-                Tile secRDSpace = board.get(k - 8);
-                if (secRDSpace.getTile() == EMPTY) {
-                    char col0 = Move.col(k);
-                    char row0 = Move.row(k);
-                    char col1 = Move.col(k - 8);
-                    char row1 = Move.row(k - 8);
-                    Move moveToMake = Move.move(col0, row0, col1, row1);
-                    ArrayList<Move> tails = getJumpsHelper(moveToMake);
-                    if (tails.size() == 0) {
-                        moves.add(moveToMake);
-                    } else {
-                        for (Move t: tails) {
-                            Move actualJump = move(moveToMake, t);
-                            moves.add(actualJump);
-                        }
-                    }
-                }
+            long jump = prefix == MoveCode.NONE ? MoveCode.jump(k, d)
+                : MoveCode.extend(prefix, d);
+            saveState();
+            makeLeg(k, to, true);
+            if (jumpPossible(to)) {
+                getJumps(moves, jump, to);
+            } else {
+                moves.add(jump);
             }
+            restoreState();
         }
     }
 
-    /**
-     * Gets the jumpTails of the possible jumps.
-     * @param mov Move
-     * @return tails
-     */
-    private ArrayList<Move> getJumpsHelper(Move mov) {
-        ArrayList<Move> tails = new ArrayList<>();
-        this.makeQuickMove(mov);
-        getJumps(tails, mov.toIndex());
-        undo(mov);
-        return tails;
-    }
-
     /** Return true iff MOV is a valid jump sequence on the current board.
      *  MOV must be a jump or null.  If ALLOWPARTIAL, allow jumps that
      *  could be continued and are valid as far as they go.  */
@@ -667,32 +480,32 @@ class Board extends Observable {
         if (mov == null) {
             return true;
         }
-        char col0 = mov.col0();
-        char row0 = mov.row0();
-        char col1 = mov.col1();
-        char row1 = mov.row1();
-        int indexFrom = Move.index(col0, row0);
-        int indexTo = Move.index(col1, row1);
-
-        ArrayList<Move> possibleJumps = new ArrayList<Move>();
-        getJumps(possibleJumps, indexFrom);
-
-        for (Move iter : possibleJumps) {
-            if (iter.toIndex() == indexTo) {
-                if (mov.jumpTail() != null) {
-                    checkJump(mov.jumpTail(), allowPartial);
-                }
-                if (!allowPartial) {
-                    ArrayList<Move> newJumps = new ArrayList<Move>();
-                    getJumps(newJumps, indexTo);
-                    if (newJumps.size() > 0) {
-                        return false;
-                    }
-                }
-                return true;
+        if (!contains(pieces(whoseMove()), mov.fromIndex())) {
+            return false;
+        }
+        saveState();
+        boolean valid = true;
+        int k = mov.fromIndex();
+        for (Move leg = mov; valid && leg != null; leg = leg.jumpTail()) {
+            valid = leg.isJump() && leg.fromIndex() == k
+                && jumpPossible(k, leg.toIndex());
+            if (valid) {
+                makeLeg(k, leg.toIndex(), true);
+                k = leg.toIndex();
             }
         }
-        return false;
+        valid = valid && (allowPartial || !jumpPossible(k));
+        restoreState();
+        return valid;
+    }
+
+    /** Return true iff the piece on square K0, which belongs to the
+     *  player on move, may jump to square K1. */
+    private boolean jumpPossible(int k0, int k1) {
+        int d = direction(LANDING, k0, k1);
+        return d >= 0 && contains(pieces(whoseMove().opposite()),
+                                  NEIGHBOR[k0][d])
+            && contains(pieces(EMPTY), k1);
     }
 
     /** Return true iff a jump is possible for a piece at position C R. */
@@ -703,104 +516,43 @@ class Board extends Observable {
     /** Return true iff a jump is possible for a piece at position with
      *  linearized index K. */
     boolean jumpPossible(int k) {
-        Tile tileObj = board.get(k);
-        PieceColor thisTile = tileObj.getTile();
-        if (thisTile == EMPTY || tileObj.getTile() == whoseMove().opposite()) {
+        if (!contains(pieces(whoseMove()), k)) {
             return false;
         }
-        if (tileObj.hasBottomSpace() && tileObj.hasTwoBottomSpace()) {
-            Tile bottomTile = board.get(k - 5);
-            if (bottomTile.getTile() == thisTile.opposite()) {
-                Tile secBottomTile = board.get(k - 10);
-                if (secBottomTile.getTile() == EMPTY) {
-                    return true;
-                }
-            }
-        }
-        if (tileObj.hasTopSpace() && tileObj.hasTwoTopSpace()) {
-            Tile topTile = board.get(k + 5);
-            if (topTile.getTile() == thisTile.opposite()) {
-                Tile secTopTile = board.get(k + 10);
-                if (secTopTile.getTile() == EMPTY) {
-                    return true;
-                }
-            }
-        }
-        if (tileObj.hasRightSpace() && tileObj.hasTwoRightSpace()) {
-            Tile rightTile = board.get(k + 1);
-            if (rightTile.getTile() == thisTile.opposite()) {
-                Tile secRightTile = board.get(k + 2);
-                if (secRightTile.getTile() == EMPTY) {
-                    return true;
-                }
-            }
-        }
-        if (tileObj.hasLeftSpace() && tileObj.hasTwoLeftSpace()) {
-            Tile leftTile = board.get(k - 1);
-            if (leftTile.getTile() == thisTile.opposite()) {
-                Tile secLeftTile = board.get(k - 2);
-                if (secLeftTile.getTile() == EMPTY) {
-                    return true;
-                }
-            }
-        }
-        return continueJumpPossible(k);
-    }
-
-    /** Continues return true iff a jump is
-     * possible for a piece at position with
-     *  linearized index K. */
-    boolean continueJumpPossible(int k) {
-        Tile tileObj = board.get(k);
-        PieceColor thisTile = tileObj.getTile();
-        if (tileObj.hasdiagonalLUSpace() && tileObj.hasTwoDiagonalLUSpace()) {
-            Tile leftUpper = board.get(k + 4);
-            if (leftUpper.getTile() == thisTile.opposite()) {
-                Tile secLUSpace = board.get(k + 8);
-                if (secLUSpace.getTile() == EMPTY) {
-                    return true;
-                }
-            }
-        }
-        if (tileObj.hasdiagonalLDSpace() && tileObj.hasTwoDiagonalLDSpace()) {
-            Tile leftDown = board.get(k - 6);
-            if (leftDown.getTile() == thisTile.opposite()) {
-                Tile secLDSpace = board.get(k - 12);
-                if (secLDSpace.getTile() == EMPTY) {
-                    return true;
-                }
-            }
-        }
-        if (tileObj.hasdiagonalRUSpace() && tileObj.hasTwoDiagonalRUSpace()) {
-            Tile rightUpper = board.get(k + 6);
-            if (rightUpper.getTile() == thisTile.opposite()) {
-                Tile secRUSpace = board.get(k + 12);
-                if (secRUSpace.getTile() == EMPTY) {
-                    return true;
-                }
-            }
-        }
-        if (tileObj.hasdiagonalRDSpace() && tileObj.hasTwoDiagonalRDSpace()) {
-            Tile rightDown = board.get(k - 4);
-            if (rightDown.getTile() == thisTile.opposite()) {
-                Tile secRDSpace = board.get(k - 8);
-                if (secRDSpace.getTile() == EMPTY) {
-                    return true;
-                }
+        int theirs = pieces(whoseMove().opposite());
+        int empty = pieces(EMPTY);
+        for (int d = 0; d < DIRECTIONS; d += 1) {
+            int to = LANDING[k][d];
+            if (to >= 0 && contains(theirs, NEIGHBOR[k][d])
+                && contains(empty, to)) {
+                return true;
             }
         }
         return false;
     }
+
     /** Return true iff a jump is possible from the current board. */
     boolean jumpPossible() {
-        for (int k = 0; k <= MAX_INDEX; k += 1) {
-            if (jumpPossible(k)) {
+        int mine = pieces(whoseMove());
+        int theirs = pieces(whoseMove().opposite());
+        int empty = pieces(EMPTY);
+        for (int d = 0; d < DIRECTIONS; d += 1) {
+            int delta = DELTA[d];
+            int jumpers = mine & JUMP_SOURCES[d]
+                & shift(theirs, delta) & shift(empty, 2 * delta);
+            if (jumpers != 0) {
                 return true;
             }
         }
         return false;
     }
 
+    /** Return the square mask SQUARES shifted so that bit K of the result
+     *  is bit K + DELTA of SQUARES (0 where that is off the board). */
+    private static int shift(int squares, int delta) {
+        return delta >= 0 ? squares >>> delta : squares << -delta;
+    }
+
     /** Return the color of the player who has the next move.  The
      *  value is arbitrary if gameOver(). */
     PieceColor whoseMove() {
@@ -819,74 +571,126 @@ class Board extends Observable {
         makeMove(Move.move(c0, r0, c1, r1, next));
     }
 
-    /** Make the Move MOV on this Board, assuming it is legal. */
-    void makeMove(Move mov) {
+    /** Make the Move MOV on this Board if it is legal, and otherwise do
+     *  nothing.  Return true iff MOV was made. */
+    boolean makeMove(Move mov) {
         if (!legalMove(mov)) {
-            System.out.println("Not a legal move");
-            return;
-        }
-        PieceColor pieceToMove = board.get(mov.fromIndex()).getTile();
-        board.get(mov.toIndex()).setTile(pieceToMove);
-        board.get(mov.fromIndex()).setTile(EMPTY);
-        if (mov.isRightMove()) {
-            blocks[mov.toIndex()] = -1;
-        } else if (mov.isLeftMove()) {
-            blocks[mov.toIndex()] = 1;
-        } else {
-            blocks[mov.toIndex()] = 0;
-        }
-        if (mov.isJump()) {
-            board.get(index(mov.jumpedCol(), mov.jumpedRow())).setTile(EMPTY);
-        }
-        if (mov.jumpTail() == null) {
-            _whoseMove = _whoseMove.opposite();
-        } else {
-            makeMove(mov.jumpTail());
+            return false;
         }
+        makeQuickMove(mov);
         setChanged();
         notifyObservers();
+        return true;
     }
 
-    /**
-     * Does a move under the hood.
-     * @param mov Move
-     */
+    /** Make MOV, which is assumed legal, for the player on move without
+     *  checking it, and give the move to the other player.  Records just
+     *  enough to allow undo() to restore the current position exactly,
+     *  so that a search may make and unmake moves on a single board.
+     *  Does not notify observers. */
     void makeQuickMove(Move mov) {
-        PieceColor pieceToMove = board.get(mov.fromIndex()).getTile();
-        board.get(mov.toIndex()).setTile(pieceToMove);
-        board.get(mov.fromIndex()).setTile(EMPTY);
-        if (mov.isRightMove()) {
-            blocks[mov.toIndex()] = -1;
-        } else if (mov.isLeftMove()) {
-            blocks[mov.toIndex()] = 1;
-        } else {
-            blocks[mov.toIndex()] = 0;
+        saveState();
+        for (Move leg = mov; leg != null; leg = leg.jumpTail()) {
+            makeLeg(leg.fromIndex(), leg.toIndex(), leg.isJump());
         }
+        _whoseMove = _whoseMove.opposite();
+        _key ^= BLACK_TO_MOVE_KEY;
+    }
 
-        if (mov.isJump()) {
-            board.get(index(mov.jumpedCol(), mov.jumpedRow())).setTile(EMPTY);
-        }
-        if (mov.jumpTail() != null) {
-            makeQuickMove(mov.jumpTail());
-        }
-        setChanged();
-        notifyObservers();
+    /** Make the move with code CODE, as for makeQuickMove(Move). */
+    void makeQuickMove(long code) {
+        saveState();
+        int k = MoveCode.from(code), stride = MoveCode.stride(code);
+        boolean jump = MoveCode.isJump(code);
+        for (int i = 0, n = MoveCode.legs(code); i < n; i += 1) {
+            int to = k + stride * DELTA[MoveCode.direction(code, i)];
+            makeLeg(k, to, jump);
+            k = to;
+        }
+        _whoseMove = _whoseMove.opposite();
+        _key ^= BLACK_TO_MOVE_KEY;
     }
 
-    /**
-     * Undos a move.
-     * @param mov Move
-     */
-    void undo(Move mov) {
-        PieceColor pieceToMove = board.get(mov.toIndex()).getTile();
-        board.get(mov.fromIndex()).setTile(pieceToMove);
-        board.get(mov.toIndex()).setTile(EMPTY);
-        if (mov.isJump()) {
-            board.get(index(mov.jumpedCol(),
-                    mov.jumpedRow())).setTile(pieceToMove.opposite());
-        }
-        setChanged();
-        notifyObservers();
+    /** Perform one leg of a move from square K0 to square K1, a jump iff
+     *  JUMP: move the piece on K0 to (empty) K1, remove any piece it
+     *  jumps over, and record the horizontal restriction the move places
+     *  on the piece. */
+    private void makeLeg(int k0, int k1, boolean jump) {
+        int from = 1 << k0, to = 1 << k1;
+        PieceColor mover;
+        if ((_whitePieces & from) != 0) {
+            _whitePieces = (_whitePieces & ~from) | to;
+            mover = WHITE;
+        } else {
+            _blackPieces = (_blackPieces & ~from) | to;
+            mover = BLACK;
+        }
+        long[] moverKeys = PIECE_KEYS[mover.ordinal()];
+        _key ^= moverKeys[k0] ^ moverKeys[k1];
+        _positionalValue += _evaluator.squareValue(mover, k1)
+            - _evaluator.squareValue(mover, k0);
+        int noLeft = _noLeftMoves & ~(from | to),
+            noRight = _noRightMoves & ~(from | to);
+        if (jump) {
+            int k = (k0 + k1) / 2;
+            noLeft &= ~(1 << k);
+            noRight &= ~(1 << k);
+            if (contains(_whitePieces, k)) {
+                _whitePieces &= ~(1 << k);
+                _key ^= PIECE_KEYS[WHITE.ordinal()][k];
+                _positionalValue -= _evaluator.squareValue(WHITE, k);
+            } else if (contains(_blackPieces, k)) {
+                _blackPieces &= ~(1 << k);
+                _key ^= PIECE_KEYS[BLACK.ordinal()][k];
+                _positionalValue -= _evaluator.squareValue(BLACK, k);
+            }
+        } else if (k1 == k0 + 1) {
+            noLeft |= to;
+        } else if (k1 == k0 - 1) {
+            noRight |= to;
+        }
+        _key ^= squareKeys(_noLeftMoves ^ noLeft, NO_LEFT_KEYS)
+            ^ squareKeys(_noRightMoves ^ noRight, NO_RIGHT_KEYS);
+        _noLeftMoves = noLeft;
+        _noRightMoves = noRight;
+    }
+
+    /** Undo the last move made by makeMove or makeQuickMove, restoring
+     *  the pieces it moved and captured, the horizontal restrictions it
+     *  changed, and the player on move.  Does not notify observers. */
+    void undo() {
+        assert _undoTop > 0;
+        restoreState();
+    }
+
+    /** Push the current position (pieces, horizontal restrictions, and
+     *  player on move) on the undo stack. */
+    private void saveState() {
+        if (_undoTop + UNDO_ENTRY > _undoStack.length) {
+            int depth = Math.max(INITIAL_UNDO_DEPTH, 2 * _keyStack.length);
+            _undoStack = Arrays.copyOf(_undoStack, UNDO_ENTRY * depth);
+            _keyStack = Arrays.copyOf(_keyStack, depth);
+        }
+        _undoStack[_undoTop] = _whitePieces;
+        _undoStack[_undoTop + 1] = _blackPieces;
+        _undoStack[_undoTop + 2] = _noLeftMoves;
+        _undoStack[_undoTop + 3] = _noRightMoves;
+        _undoStack[_undoTop + 4] = _whoseMove.ordinal();
+        _undoStack[_undoTop + 5] = _positionalValue;
+        _keyStack[_undoTop / UNDO_ENTRY] = _key;
+        _undoTop += UNDO_ENTRY;
+    }
+
+    /** Pop the position last saved by saveState and make it current. */
+    private void restoreState() {
+        _undoTop -= UNDO_ENTRY;
+        _whitePieces = _undoStack[_undoTop];
+        _blackPieces = _undoStack[_undoTop + 1];
+        _noLeftMoves = _undoStack[_undoTop + 2];
+        _noRightMoves = _undoStack[_undoTop + 3];
+        _whoseMove = PIECE_VALUES[_undoStack[_undoTop + 4]];
+        _positionalValue = _undoStack[_undoTop + 5];
+        _key = _keyStack[_undoTop / UNDO_ENTRY];
     }
 
     @Override
@@ -894,14 +698,6 @@ class Board extends Observable {
         return toString(false);
     }
 
-    /**
-     * returns the Hashmap represnting the board.
-     * @return HashMap<Integer, Tile>
-     */
-    public HashMap<Integer, Tile> getBoardRep() {
-        return board;
-    }
-
     /** Return a text depiction of the board.  If LEGEND, supply row and
      *  column numbers around the edges. */
     String toString(boolean legend) {
@@ -911,71 +707,275 @@ class Board extends Observable {
         final int twentyFive = 25;
         out.format(" ");
         for (int i = twenty; i < twentyFive; i++) {
-            out.format(" " + board.get(i).getTile().shortName());
+            out.format(" " + get(i).shortName());
         }
         out.format("\n");
         out.format(" ");
         for (int i = fift; i < twenty; i++) {
-            out.format(" " + board.get(i).getTile().shortName());
+            out.format(" " + get(i).shortName());
         }
         out.format("\n");
         out.format(" ");
         for (int i = 10; i < 15; i++) {
-            out.format(" " + board.get(i).getTile().shortName());
+            out.format(" " + get(i).shortName());
         }
         out.format("\n");
         out.format(" ");
         for (int i = 5; i < 10; i++) {
-            out.format(" " + board.get(i).getTile().shortName());
+            out.format(" " + get(i).shortName());
         }
         out.format("\n");
         out.format(" ");
         for (int i = 0; i < 5; i++) {
-            out.format(" " + board.get(i).getTile().shortName());
+            out.format(" " + get(i).shortName());
         }
         return out.toString();
     }
 
-    /** Return true iff there is a move for the current player. */
-    private boolean isMove() {
-        if (getMoves().size() != 0) {
-            return true;
-        }
-        return false;
-    }
-
     /** Player that is on move. */
     protected PieceColor _whoseMove;
 
     /** Set true when game ends. */
     private boolean _gameOver;
 
-    /**
-     * Board representation.
-     */
-    private HashMap<Integer, Tile> board = new HashMap<Integer, Tile>();
+    /** Bit K is set iff square K holds a white piece. */
+    private int _whitePieces;
 
-    /**
-     * BoardStates.
-     */
-    private Stack boardStates = new Stack();
+    /** Bit K is set iff square K holds a black piece. */
+    private int _blackPieces;
 
-    /**
-     * keeps track of horizontal limitations.
-     */
-    private Integer[] blocks = new Integer[]
-        {0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
-         0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0};
+    /** Horizontal limitations: bit K of _noLeftMoves (_noRightMoves) is set
+     *  iff the piece on square K got there by moving right (left), and so
+     *  may not move back left (right) until it moves in another way. */
+    private int _noLeftMoves, _noRightMoves;
+
+    /** Zobrist key of the current position (see key()). */
+    private long _key;
+
+    /** The evaluator whose positional values I keep track of. */
+    private Evaluator _evaluator = Evaluator.DEFAULT;
+
+    /** Positional value of the current position (see positionalValue). */
+    private int _positionalValue;
+
+    /** Positions saved for undo(), UNDO_ENTRY ints per move made:
+     *  white pieces, black pieces, the two horizontal restriction masks,
+     *  the ordinal of the player on move, and the positional value.
+     *  Allocated on the first move, since views of boards, and the boards
+     *  of idle games, never need it. */
+    private int[] _undoStack = NO_INTS;
+
+    /** Zobrist keys of the positions in _undoStack. */
+    private long[] _keyStack = NO_LONGS;
+
+    /** Number of ints in use in _undoStack. */
+    private int _undoTop;
+
+    /** Number of ints saved by saveState. */
+    private static final int UNDO_ENTRY = 6;
+
+    /** Number of moves _undoStack can hold when first allocated. */
+    private static final int INITIAL_UNDO_DEPTH = 64;
+
+    /** The empty _undoStack. */
+    private static final int[] NO_INTS = {};
+
+    /** The empty _keyStack. */
+    private static final long[] NO_LONGS = {};
+
+    /** Mask of all squares on the board. */
+    static final int ALL_SQUARES = (1 << (MAX_INDEX + 1)) - 1;
+
+    /** Masks of the initial white and black pieces (rows 5 to 1 from
+     *  left to right, columns e to a within each row). */
+    private static final int
+        INITIAL_WHITE = 0b00000_00000_11000_11111_11111,
+        INITIAL_BLACK = 0b11111_11111_00011_00000_00000;
+
+    /* Board geometry.  These facts are the same for every board, so they
+     * are computed once, when the class is loaded, and shared.  Directions
+     * are numbered in the order in which jumps are generated. */
 
+    /** Direction numbers. */
+    static final int
+        DOWN = 0, UP = 1, RIGHT = 2, LEFT = 3,
+        UP_LEFT = 4, DOWN_LEFT = 5, UP_RIGHT = 6, DOWN_RIGHT = 7;
+
+    /** Number of directions. */
+    static final int DIRECTIONS = 8;
+
+    /** Change in column and row for one step in each direction. */
+    static final int[]
+        COL_STEP = { 0, 0, 1, -1, -1, -1, 1, 1 },
+        ROW_STEP = { -1, 1, 0, 0, 1, -1, 1, -1 };
+
+    /** The order in which non-capturing moves are generated. */
+    private static final int[] STEP_ORDER = {
+        DOWN, UP, RIGHT, LEFT, UP_LEFT, UP_RIGHT, DOWN_LEFT, DOWN_RIGHT
+    };
+
+    /** Change in linearized index for one step in each direction. */
+    static final int[] DELTA = new int[DIRECTIONS];
+
+    /** NEIGHBOR[K][D] is the square adjacent to square K in direction D
+     *  (which is also the square jumped over by a jump from K in
+     *  direction D), or -1 if there is none.  Diagonal connections exist
+     *  only at squares whose column and row numbers have an even sum. */
+    private static final int[][] NEIGHBOR =
+        new int[MAX_INDEX + 1][DIRECTIONS];
+
+    /** LANDING[K][D] is the square two steps from square K in direction
+     *  D, on which a jump from K in that direction lands, or -1 if there
+     *  is none. */
+    private static final int[][] LANDING =
+        new int[MAX_INDEX + 1][DIRECTIONS];
+
+    /** JUMP_SOURCES[D] is the mask of squares K with LANDING[K][D] >= 0. */
+    private static final int[] JUMP_SOURCES = new int[DIRECTIONS];
+
+    /** STEP_SOURCES[D] is the mask of squares K with NEIGHBOR[K][D] >= 0. */
+    private static final int[] STEP_SOURCES = new int[DIRECTIONS];
+
+    /** Masks of the squares in rows 1 and 5. */
+    private static final int
+        FIRST_ROW = (1 << SIDE) - 1,
+        LAST_ROW = FIRST_ROW << (SIDE * (SIDE - 1));
+
+    static {
+        for (int d = 0; d < DIRECTIONS; d += 1) {
+            DELTA[d] = COL_STEP[d] + ROW_STEP[d] * SIDE;
+        }
+        for (int k = 0; k <= MAX_INDEX; k += 1) {
+            int c = k % SIDE, r = k / SIDE;
+            for (int d = 0; d < DIRECTIONS; d += 1) {
+                boolean linked =
+                    (COL_STEP[d] == 0 || ROW_STEP[d] == 0) || (c + r) % 2 == 0;
+                NEIGHBOR[k][d] = LANDING[k][d] = -1;
+                if (linked && onBoard(c + COL_STEP[d], r + ROW_STEP[d])) {
+                    NEIGHBOR[k][d] = k + DELTA[d];
+                    STEP_SOURCES[d] |= 1 << k;
+                }
+                if (linked
+                    && onBoard(c + 2 * COL_STEP[d], r + 2 * ROW_STEP[d])) {
+                    LANDING[k][d] = k + 2 * DELTA[d];
+                    JUMP_SOURCES[d] |= 1 << k;
+                }
+            }
+        }
+    }
+
+    /** Return true iff column C and row R (numbered from 0) are on the
+     *  board. */
+    private static boolean onBoard(int c, int r) {
+        return 0 <= c && c < SIDE && 0 <= r && r < SIDE;
+    }
+
+    /* Zobrist keys.  The key of a position is the exclusive or of one
+     * random number for each (color, square) pair occupied, one for each
+     * square in each horizontal restriction mask, and one more if black
+     * is to move.  The numbers come from a fixed seed so that keys are
+     * the same from run to run. */
+
+    /** PIECE_KEYS[C.ordinal()][K] is the key of a piece of color C on
+     *  square K. */
+    private static final long[][] PIECE_KEYS =
+        new long[PieceColor.values().length][MAX_INDEX + 1];
+
+    /** Keys of squares in _noLeftMoves and _noRightMoves. */
+    private static final long[]
+        NO_LEFT_KEYS = new long[MAX_INDEX + 1],
+        NO_RIGHT_KEYS = new long[MAX_INDEX + 1];
+
+    /** Key of black being on move. */
+    private static final long BLACK_TO_MOVE_KEY;
+
+    /** Seed for the Zobrist keys. */
+    private static final long ZOBRIST_SEED = 0x51a7c0ffeeL;
+
+    static {
+        Random keys = new Random(ZOBRIST_SEED);
+        for (PieceColor c : new PieceColor[] { WHITE, BLACK }) {
+            for (int k = 0; k <= MAX_INDEX; k += 1) {
+                PIECE_KEYS[c.ordinal()][k] = keys.nextLong();
+            }
+        }
+        for (int k = 0; k <= MAX_INDEX; k += 1) {
+            NO_LEFT_KEYS[k] = keys.nextLong();
+            NO_RIGHT_KEYS[k] = keys.nextLong();
+        }
+        BLACK_TO_MOVE_KEY = keys.nextLong();
+    }
 
     /** Convenience value giving values of pieces at each ordinal position. */
     static final PieceColor[] PIECE_VALUES = PieceColor.values();
 
-    /** One cannot create arrays of ArrayList<Move>, so we introduce
-     *  a specialized private list type for this purpose. */
-    private static class MoveList extends ArrayList<Move> {
+    /** A list of move codes (see MoveCode), which, unlike a list of
+     *  Moves, involves no objects per move. */
+    static class MoveList {
+
+        /** Return the number of codes in me. */
+        int size() {
+            return _size;
+        }
+
+        /** Return true iff I am empty. */
+        boolean isEmpty() {
+            return _size == 0;
+        }
+
+        /** Return my Kth code. */
+        long get(int k) {
+            assert 0 <= k && k < _size;
+            return _codes[k];
+        }
+
+        /** Add CODE at my end. */
+        void add(long code) {
+            if (_size == _codes.length) {
+                _codes = Arrays.copyOf(_codes, 2 * _codes.length);
+            }
+            _codes[_size] = code;
+            _size += 1;
+        }
+
+        /** Remove all my codes. */
+        void clear() {
+            _size = 0;
+        }
+
+        /** Sort my codes into decreasing order of KEYS, where KEYS[K]
+         *  is the key of my Kth code, reordering KEYS to match.  Codes
+         *  with equal keys keep their relative order. */
+        void sort(int[] keys) {
+            for (int i = 1; i < _size; i += 1) {
+                long code = _codes[i];
+                int key = keys[i];
+                int j;
+                for (j = i; j > 0 && keys[j - 1] < key; j -= 1) {
+                    _codes[j] = _codes[j - 1];
+                    keys[j] = keys[j - 1];
+                }
+                _codes[j] = code;
+                keys[j] = key;
+            }
+        }
+
+        /** Add the Moves denoted by my codes, in order, to MOVES. */
+        void toMoves(ArrayList<Move> moves) {
+            for (int i = 0; i < _size; i += 1) {
+                moves.add(MoveCode.toMove(_codes[i]));
+            }
+        }
+
+        /** My codes, in _codes[0 .. _size-1]. */
+        private long[] _codes = new long[INITIAL_MOVES];
+        /** Number of codes in me. */
+        private int _size;
     }
 
+    /** Number of codes a MoveList can initially hold. */
+    private static final int INITIAL_MOVES = 32;
+
     /** A read-only view of a Board. */
     private class ConstantBoard extends Board implements Observer {
         /** A constant view of this Board. */
@@ -995,15 +995,44 @@ class Board extends Observable {
         }
 
         @Override
-        void makeMove(Move move) {
+        void setPieces(String str, PieceColor nextMove) {
             assert false;
         }
 
-        /** Undo the last move. */
+        @Override
+        boolean makeMove(Move move) {
+            assert false;
+            return false;
+        }
+
+        @Override
+        void makeQuickMove(Move move) {
+            assert false;
+        }
+
+        @Override
+        void makeQuickMove(long code) {
+            assert false;
+        }
+
+        @Override
         void undo() {
             assert false;
         }
 
+        /** A view is equal only to itself, since a Board, as an
+         *  Observable, ignores observers equal to ones it already has, and
+         *  must keep every view of it up to date. */
+        @Override
+        public boolean equals(Object obj) {
+            return obj == this;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this);
+        }
+
         @Override
         public void update(Observable obs, Object arg) {
             super.copy((Board) obs);
@@ -41,7 +41,7 @@ class BoardWidget extends Pad implements Observer {
     private static final BasicStroke OUTLINE_STROKE = LINE_STROKE;
 
     /** Model being displayed. */
-    private static Board _model;
+    private final Board _model;
 
     /** A new widget displaying MODEL. */
     BoardWidget(Board model) {
@@ -19,12 +19,21 @@ class Command {
         AUTO("(?i)auto\\s+(white|black)"),
         MANUAL("(?i)manual\\s+(white|black)"),
         SEED("seed\\s+(\\d+)"),
+        HASH("hash\\s+(\\d+)"),
+        TIME("time\\s+(\\d+)"),
+        THREADS("threads\\s+(\\d+)"),
+        DEPTH("depth\\s+(\\d+)"),
+        WEIGHTS("(?i)weights\\s+(?:(white|black)\\s+)?(\\S+)"),
+        BOOK("(?i)book\\s+(\\S+)"),
         START,
         SETBOARD("(?i)set\\s+(white|black)\\s+((?:[bw-]\\s*){25})"),
         /* Regular moves (set-up or play) */
         PIECEMOVE("([a-e][1-5](?:-[a-e][1-5])+)"),
         /* Valid at any time. */
         LOAD("load\\s+(\\S+)"),
+        PERFT("perft\\s+(\\d+)"),
+        DIVIDE("divide\\s+(\\d+)"),
+        STATS("(?i)stats(?:\\s+(on|off))?"),
         QUIT, CLEAR, DUMP, HELP,
         /* Special "commands" internally generated. */
         /** Syntax error in command. */
@@ -43,6 +43,55 @@ public class CommandTest {
         checkError("seed 142 foo");
     }
 
+    @Test public void testHASH() {
+        check("hash 64", HASH, "64");
+        checkError("hash");
+        checkError("hash 6x");
+    }
+
+    @Test public void testTIME() {
+        check("time 500", TIME, "500");
+        checkError("time");
+        checkError("time -5");
+    }
+
+    @Test public void testPERFT() {
+        check("perft 6", PERFT, "6");
+        check("divide 3", DIVIDE, "3");
+        checkError("perft");
+        checkError("divide x");
+    }
+
+    @Test public void testWEIGHTS() {
+        check("weights w.txt", WEIGHTS, null, "w.txt");
+        check("weights black w.txt", WEIGHTS, "black", "w.txt");
+        checkError("weights");
+    }
+
+    @Test public void testBOOK() {
+        check("book off", BOOK, "off");
+        check("book openings.bin", BOOK, "openings.bin");
+        checkError("book");
+    }
+
+    @Test public void testSTATS() {
+        check("stats", STATS, (String) null);
+        check("stats on", STATS, "on");
+        check("stats OFF", STATS, "OFF");
+        checkError("stats maybe");
+    }
+
+    @Test public void testDEPTH() {
+        check("depth 12", DEPTH, "12");
+        checkError("depth");
+    }
+
+    @Test public void testTHREADS() {
+        check("threads 8", THREADS, "8");
+        checkError("threads");
+        checkError("threads eight");
+    }
+
     @Test public void testSTART() {
         check("start", START);
         checkError("start foo");
@@ -0,0 +1,185 @@
+package qirkat;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+
+import static qirkat.PieceColor.*;
+import static qirkat.Move.*;
+
+/** A static evaluator of Qirkat positions, giving a heuristic value from
+ *  White's point of view as a weighted sum of the differences between
+ *  the two players in
+ *    - material: the number of pieces;
+ *    - position: the values of the squares the pieces occupy, which
+ *      include a bonus for advancement toward the far row;
+ *    - mobility: the number of non-capturing moves the pieces could make
+ *      (ignoring the horizontal limits and mandatory capture);
+ *    - restriction: the number of pieces that may not move back
+ *      horizontally.
+ *  Boards keep the positional sum up to date as moves are made and
+ *  undone (see Board.setEvaluator), and the other terms come from bit
+ *  counts, so evaluation takes constant time.
+ *
+ *  Weights are read from files (see load) consisting of the following
+ *  entries, in any order, separated by whitespace, with '#' starting
+ *  comments that run to the end of the line:
+ *      material W
+ *      mobility W
+ *      restricted W
+ *      advance W1 W2 W3 W4 W5
+ *      square W1 ... W25
+ *  'advance' gives the value of a piece on each row, counting from the
+ *  player's own first row, and 'square' the value of each square from
+ *  White's side, in the order of Board.setPieces.  Black's values are
+ *  the mirror image.  Omitted entries are 0.  The file weights.txt in
+ *  this package holds the default weights.
+ *  @author Adish Jain
+ */
+class Evaluator {
+
+    /** The evaluator with the default weights. */
+    static final Evaluator DEFAULT =
+        new Evaluator(100, 6, -4,
+                      new int[] { 0, 1, 2, 3, -4 },
+                      new int[SIDE * SIDE]);
+
+    /** An evaluator giving each piece a value of MATERIAL, each possible
+     *  non-capturing move MOBILITY, and each piece with a horizontal
+     *  restriction RESTRICTED, with piece values ADVANCE by row and SQUARE
+     *  by square, as described for weight files. */
+    Evaluator(int material, int mobility, int restricted,
+              int[] advance, int[] square) {
+        if (advance.length != SIDE || square.length != SIDE * SIDE) {
+            throw new IllegalArgumentException("wrong number of weights");
+        }
+        _material = material;
+        _mobility = mobility;
+        _restricted = restricted;
+        _advance = advance.clone();
+        _square = square.clone();
+        _squareValues = new int[PieceColor.values().length][SIDE * SIDE];
+        for (int k = 0; k <= MAX_INDEX; k += 1) {
+            int mirror = (SIDE - 1 - k / SIDE) * SIDE + k % SIDE;
+            _squareValues[WHITE.ordinal()][k] =
+                square[k] + advance[k / SIDE];
+            _squareValues[BLACK.ordinal()][k] =
+                -square[mirror] - advance[mirror / SIDE];
+        }
+        _key = Arrays.hashCode(new int[] { material, mobility, restricted })
+            * SALT_MULTIPLIER
+            ^ Arrays.hashCode(advance) * (SALT_MULTIPLIER << 1)
+            ^ Arrays.hashCode(square);
+    }
+
+    /** Return the evaluator whose weights are in FILE, in the format
+     *  described above.  Throws IllegalArgumentException if FILE is
+     *  badly formed or cannot be read. */
+    static Evaluator load(File file) {
+        int material = 0, mobility = 0, restricted = 0;
+        int[] advance = new int[SIDE], square = new int[SIDE * SIDE];
+        try (Scanner inp = new Scanner(file)) {
+            inp.useDelimiter("(?:\\s|#[^\\n]*)+");
+            while (inp.hasNext()) {
+                String name = inp.next();
+                switch (name) {
+                case "material":
+                    material = inp.nextInt();
+                    break;
+                case "mobility":
+                    mobility = inp.nextInt();
+                    break;
+                case "restricted":
+                    restricted = inp.nextInt();
+                    break;
+                case "advance":
+                    readWeights(inp, advance);
+                    break;
+                case "square":
+                    readWeights(inp, square);
+                    break;
+                default:
+                    throw new IllegalArgumentException(
+                        String.format("unknown weight in %s", file));
+                }
+            }
+        } catch (FileNotFoundException excp) {
+            throw new IllegalArgumentException(
+                String.format("cannot read %s", file));
+        } catch (NoSuchElementException excp) {
+            throw new IllegalArgumentException(
+                String.format("badly formed weights in %s", file));
+        }
+        return new Evaluator(material, mobility, restricted,
+                             advance, square);
+    }
+
+    /** Read WEIGHTS.length integers from INP into WEIGHTS. */
+    private static void readWeights(Scanner inp, int[] weights) {
+        for (int i = 0; i < weights.length; i += 1) {
+            weights[i] = inp.nextInt();
+        }
+    }
+
+    /** Return the heuristic value of BOARD, whose evaluator must be
+     *  me. */
+    int evaluate(Board board) {
+        assert board.evaluator() == this;
+        return _material * (board.pieceCount(WHITE)
+                            - board.pieceCount(BLACK))
+            + board.positionalValue()
+            + _mobility * (board.mobility(WHITE) - board.mobility(BLACK))
+            + _restricted * (board.restricted(WHITE)
+                             - board.restricted(BLACK));
+    }
+
+    /** Return the contribution to the positional value (from White's
+     *  point of view) of a piece of color C on square K. */
+    int squareValue(PieceColor c, int k) {
+        return _squareValues[c.ordinal()][k];
+    }
+
+    /** Return a hash of my weights, so that search results found with
+     *  different evaluators may be told apart. */
+    long key() {
+        return _key;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof Evaluator)) {
+            return false;
+        }
+        Evaluator e = (Evaluator) obj;
+        return _material == e._material && _mobility == e._mobility
+            && _restricted == e._restricted
+            && Arrays.equals(_advance, e._advance)
+            && Arrays.equals(_square, e._square);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (_key ^ (_key >>> 32));
+    }
+
+    /** Multiplier used to spread the hashes of the weights over a
+     *  long. */
+    private static final long SALT_MULTIPLIER = 0x9e3779b97f4a7c15L;
+
+    /** Weight of a piece. */
+    private final int _material;
+    /** Weight of a possible non-capturing move. */
+    private final int _mobility;
+    /** Weight of a piece with a horizontal restriction. */
+    private final int _restricted;
+    /** Values of a piece on each row, from its owner's side. */
+    private final int[] _advance;
+    /** Values of each square, from White's side. */
+    private final int[] _square;
+    /** _squareValues[C.ordinal()][K] is squareValue(C, K). */
+    private final int[][] _squareValues;
+    /** Hash of my weights. */
+    private final long _key;
+}
@@ -0,0 +1,115 @@
+package qirkat;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import static qirkat.PieceColor.*;
+
+/** Tests of static evaluation.
+ *  @author Adish Jain
+ */
+public class EvaluatorTest {
+
+    /** An evaluator in which only the square values matter. */
+    private static final Evaluator SQUARES;
+
+    static {
+        int[] square = new int[Move.SIDE * Move.SIDE];
+        for (int k = 0; k < square.length; k += 1) {
+            square[k] = k + 1;
+        }
+        SQUARES = new Evaluator(0, 0, 0, new int[] { 0, 10, 20, 30, 40 },
+                                square);
+    }
+
+    @Test
+    public void testDefaultFile() {
+        assertEquals(Evaluator.DEFAULT,
+                     Evaluator.load(new File("weights.txt")));
+    }
+
+    @Test
+    public void testLoad() throws IOException {
+        File file = File.createTempFile("weights", ".txt");
+        file.deleteOnExit();
+        try (FileWriter out = new FileWriter(file)) {
+            out.write("# test\nmaterial 7 # per piece\nrestricted -2\n"
+                      + "advance 1 2 3 4 5\n");
+        }
+        assertEquals(new Evaluator(7, 0, -2, new int[] { 1, 2, 3, 4, 5 },
+                                   new int[Move.SIDE * Move.SIDE]),
+                     Evaluator.load(file));
+        try (FileWriter out = new FileWriter(file)) {
+            out.write("material seven\n");
+        }
+        try {
+            Evaluator.load(file);
+            fail("bad weights accepted");
+        } catch (IllegalArgumentException excp) {
+            /* Expected. */
+        }
+        try (FileWriter out = new FileWriter(file)) {
+            out.write("secret 1\n");
+        }
+        try {
+            Evaluator.load(file);
+            fail("unknown weight accepted");
+        } catch (IllegalArgumentException excp) {
+            assertFalse(excp.getMessage().contains("secret"));
+        }
+    }
+
+    @Test
+    public void testSymmetry() {
+        Board b = new Board();
+        b.setEvaluator(SQUARES);
+        b.setPieces("w---- ----- ----- ----- -----", BLACK);
+        assertEquals(1, b.positionalValue());
+        b.setPieces("----- ----- ----- ----- b----", WHITE);
+        assertEquals(-1, b.positionalValue());
+        b.setPieces("----- ----- ----- ----- w----", WHITE);
+        assertEquals(21 + 40, b.positionalValue());
+        b.setPieces("----w ----- ----- ----- ----b", WHITE);
+        assertEquals(0, b.positionalValue());
+        assertEquals(0, SQUARES.evaluate(b));
+    }
+
+    @Test
+    public void testIncremental() {
+        Board b = new Board();
+        b.setEvaluator(SQUARES);
+        Random random = new Random(1);
+        ArrayList<Move> moves = b.getMoves();
+        for (int made = 0; !moves.isEmpty() && made < 60; made += 1) {
+            int before = b.positionalValue();
+            Move mov = moves.get(random.nextInt(moves.size()));
+            b.makeQuickMove(mov);
+            Board fresh = new Board(b);
+            fresh.setEvaluator(SQUARES);
+            assertEquals(fresh.positionalValue(), b.positionalValue());
+            b.undo();
+            assertEquals(before, b.positionalValue());
+            b.makeQuickMove(mov);
+            moves = b.getMoves();
+        }
+    }
+
+    @Test
+    public void testMobility() {
+        Board b = new Board();
+        assertEquals(4, b.mobility(WHITE));
+        assertEquals(4, b.mobility(BLACK));
+        b.setPieces("----- ----- --w-- ----- -----", WHITE);
+        assertEquals(5, b.mobility(WHITE));
+        assertEquals(0, b.restricted(WHITE));
+        b.makeMove(Move.parseMove("c3-d3"));
+        assertEquals(1, b.restricted(WHITE));
+    }
+
+}
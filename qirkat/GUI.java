@@ -36,8 +36,8 @@ class GUI extends TopLevel implements Observer, Reporter {
      * GUI simply composes commands (such as "start" or "clear") and
      * writes them to a Writer that (using the Java library's PipedReader
      * and PipedWriter classes) provides input to the Game using exactly the
-     * same API as would be used to read from a terminal. Thus, a simple
-     * Manual player can handle all commands and moves from the GUI.
+     * same API as would be used to read from a terminal. Thus, the moves
+     * of manual players arrive from the GUI like all other commands.
      *
      * See also Main.java for how this might get set up.
      */
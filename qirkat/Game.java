@@ -2,13 +2,18 @@ package qirkat;
 
 /* Author: P. N. Hilfinger */
 
+import java.io.File;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.util.HashMap;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.function.Consumer;
 
 import static qirkat.PieceColor.*;
@@ -23,12 +28,21 @@ class Game {
 
     /** States of play. */
     static enum State {
-        SETUP, PLAYING;
+        SETUP, PLAYING, FINISHED;
     }
 
     /** A new Game, using BOARD to play on, reading initially from
      *  BASESOURCE and using REPORTER for error and informational messages. */
     Game(Board board, CommandSource baseSource, Reporter reporter) {
+        this(board, baseSource, reporter, System.out);
+    }
+
+    /** A new Game, using BOARD to play on, reading initially from
+     *  BASESOURCE, using REPORTER for error and informational messages,
+     *  and printing the output of commands such as 'dump' on OUTPUT. */
+    Game(Board board, CommandSource baseSource, Reporter reporter,
+         PrintStream output) {
+        _output = output;
         _inputs.addSource(baseSource);
         _board = board;
         _constBoard = _board.constantView();
@@ -37,46 +51,97 @@ class Game {
         _blackIsManual = false;
     }
 
-    /** Run a session of Qirkat gaming. */
+    /** Run a session of Qirkat gaming, until the 'quit' command or the
+     *  end of input.  The session's helper search threads are then
+     *  released, so that many sessions may run, one after another or at
+     *  once, in one program.
+     *
+     *  A session may instead be driven from outside, without a thread of
+     *  its own waiting for input: call begin(); then repeatedly, while
+     *  getState() is not FINISHED, have the AI returned by mover() (if
+     *  any) find a move and play() it, or else perform() the next line
+     *  of input (null at the end of input) when it arrives; and finally
+     *  call finish().  This method does just that, reading lines from
+     *  its command source. */
     void process() {
-        Player white, black;
-        white = black = null;
-        doClear(null);
-
-        while (true) {
-            while (_state == SETUP) {
-                doCommand();
-            }
-            if (_whiteIsManual) {
-                white = new Manual(this, WHITE);
+        begin();
+        while (_state != FINISHED) {
+            AI ai = mover();
+            if (ai != null) {
+                play(ai.myMove());
             } else {
-                white = new AI(this, WHITE);
+                perform(_inputs.getLine(prompt()));
             }
-            if (_blackIsManual) {
-                black = new Manual(this, BLACK);
+        }
+        finish();
+    }
+
+    /** Start a session (see process). */
+    void begin() {
+        doClear(null);
+    }
+
+    /** End a session (see process), reporting its total times and
+     *  releasing its helper search threads. */
+    void finish() {
+        reportTotalTimes();
+        close();
+    }
+
+    /** Return the AI that is to move next, or null if the session must
+     *  instead wait for a line of input.  When the game in progress is
+     *  over, first report the winner, returning to setup. */
+    AI mover() {
+        if (_state != PLAYING) {
+            _playersChosen = false;
+            return null;
+        }
+        if (!_playersChosen) {
+            _white = _whiteIsManual ? null : new AI(this, WHITE);
+            _black = _blackIsManual ? null : new AI(this, BLACK);
+            _playersChosen = true;
+        }
+        if (_board.gameOver() || _board.getMoves().size() == 0) {
+            reportWinner(_board.whoseMove().opposite().toString());
+            _playersChosen = false;
+            return null;
+        }
+        return _board.whoseMove() == WHITE ? _white : _black;
+    }
+
+    /** Return the prompt for the next line of input. */
+    String prompt() {
+        if (_state == PLAYING) {
+            return _board.whoseMove() + ": ";
+        }
+        return "qirkat: ";
+    }
+
+    /** Perform LINE, the next line of input, or null at the end of
+     *  input.  While playing, a move is made for the player whose turn it
+     *  is; other commands (and all commands during setup) are executed.
+     *  Errors are reported. */
+    void perform(String line) {
+        try {
+            Command cmnd = Command.parseCommand(line);
+            if (_state == PLAYING && cmnd.commandType() == PIECEMOVE) {
+                play(Move.parseMove(cmnd.operands()[0]));
             } else {
-                black = new AI(this, BLACK);
+                _commands.get(cmnd.commandType()).accept(cmnd.operands());
             }
+        } catch (GameException excp) {
+            _reporter.errMsg(excp.getMessage());
+        }
+    }
 
-            while (_state != SETUP && !_board.gameOver()) {
-                Player turn;
-                if (_board.whoseMove() == WHITE) {
-                    turn = white;
-                } else {
-                    turn = black;
-                }
-                if (_board.getMoves().size() == 0) {
-                    reportWinner(turn.myColor().opposite().toString());
-                    break;
-                }
-                Move move;
-                move = turn.myMove();
-                if (_state == PLAYING) {
-                    _board.makeMove(move);
-                }
+    /** Make MOVE for the player whose turn it is, if we are still
+     *  playing and MOVE is legal.  Otherwise report an error. */
+    void play(Move move) {
+        if (_state == PLAYING) {
+            if (!_board.makeMove(move)) {
+                reportError("Not a legal move");
             }
         }
-
     }
 
     /** Return a read-only view of my game board. */
@@ -86,35 +151,174 @@ class Game {
 
     /** Perform the next command from our input source. */
     void doCommand() {
-        try {
-            Command cmnd =
-                Command.parseCommand(_inputs.getLine("qirkat: "));
-            _commands.get(cmnd.commandType()).accept(cmnd.operands());
-        } catch (GameException excp) {
-            _reporter.errMsg(excp.getMessage());
+        perform(_inputs.getLine(prompt()));
+    }
+
+    /** Execute the command LINE as if it had been read from my input,
+     *  throwing a GameException if it is erroneous. */
+    void execute(String line) {
+        Command cmnd = Command.parseCommand(line);
+        _commands.get(cmnd.commandType()).accept(cmnd.operands());
+    }
+
+    /** Return the table of search results used by this game's AIs.  It
+     *  persists from move to move, so that later searches can reuse the
+     *  work of earlier ones. */
+    TranspositionTable transpositionTable() {
+        if (_table == null) {
+            _table = new TranspositionTable(_hashMegabytes);
         }
+        return _table;
     }
 
-    /** Read and execute commands until encountering a move or until
-     *  the game leaves playing state due to one of the commands. Return
-     *  the terminating move command, or null if the game first drops out
-     *  of playing mode. If appropriate to the current input source, use
-     *  PROMPT to prompt for input. */
-    Command getMoveCmnd(String prompt) {
-        while (_state == PLAYING) {
-            try {
-                Command cmnd = Command.parseCommand(_inputs.getLine(prompt));
-                switch (cmnd.commandType()) {
-                case PIECEMOVE:
-                    return cmnd;
-                default:
-                    _commands.get(cmnd.commandType()).accept(cmnd.operands());
-                }
-            } catch (GameException excp) {
-                _reporter.errMsg(excp.getMessage());
-            }
+    /** Return the time AIs may spend on a move, in milliseconds, or 0 if
+     *  they should instead search to a fixed depth. */
+    long moveTime() {
+        return _moveTime;
+    }
+
+    /** Return the depth to which AIs search when they have no time
+     *  limit. */
+    int searchDepth() {
+        return _searchDepth;
+    }
+
+    /** Return the evaluator used by an AI playing color C. */
+    Evaluator evaluator(PieceColor c) {
+        return c == WHITE ? _whiteEvaluator : _blackEvaluator;
+    }
+
+    /** Have an AI playing color C use EVALUATOR. */
+    void setEvaluator(PieceColor c, Evaluator evaluator) {
+        if (c == WHITE) {
+            _whiteEvaluator = evaluator;
+        } else {
+            _blackEvaluator = evaluator;
+        }
+    }
+
+    /** Return the opening book from which AIs play while they can. */
+    OpeningBook openingBook() {
+        return _book;
+    }
+
+    /** Return the number of threads AIs should search with. */
+    int searchThreads() {
+        return _searchThreads;
+    }
+
+    /** Refuse from now on the commands that read files: 'load',
+     *  'weights', and 'book' with a file.  For games whose commands
+     *  come from clients that should not reach our files. */
+    void forbidFiles() {
+        _filesForbidden = true;
+    }
+
+    /** Throw a GameException if commands may not read files. */
+    private void checkFiles() {
+        if (_filesForbidden) {
+            throw error("files are not available here");
+        }
+    }
+
+    /** Limit the AIs' transposition table to at most MEGABYTES megabytes
+     *  (by default, TranspositionTable.MAX_MEGABYTES), shrinking it if
+     *  need be. */
+    void limitHash(int megabytes) {
+        _maxHashMegabytes = megabytes;
+        if (_hashMegabytes > megabytes) {
+            _hashMegabytes = megabytes;
+            _table = null;
+        }
+    }
+
+    /** Have AIs search only with threads taken from SLOTS, which has
+     *  SIZE permits in all, waiting as necessary for other games sharing
+     *  SLOTS to release them (see beginSearch).  With SLOTS null (the
+     *  default), AIs never wait. */
+    void shareSearchThreads(Semaphore slots, int size) {
+        _searchSlots = slots;
+        _searchSlotsSize = size;
+    }
+
+    /** Wait until permits for the threads of an AI search are available
+     *  from the semaphore given to shareSearchThreads, if any, and take
+     *  them: one per search thread, but no more than the semaphore has.
+     *  Each call must be followed by one of endSearch. */
+    void beginSearch() {
+        if (_searchSlots != null) {
+            _searchPermits = Math.min(_searchThreads, _searchSlotsSize);
+            _searchSlots.acquireUninterruptibly(_searchPermits);
         }
-        return null;
+    }
+
+    /** Release the permits taken by the last beginSearch. */
+    void endSearch() {
+        if (_searchSlots != null) {
+            _searchSlots.release(_searchPermits);
+        }
+    }
+
+    /** Have AIs report the time they take to find each move iff
+     *  TIMING, and report totals at the end of the session. */
+    void setTiming(boolean timing) {
+        _timing = timing;
+    }
+
+    /** Start timing an operation. */
+    void startTiming() {
+        if (_timing) {
+            _startTime = System.currentTimeMillis();
+        }
+    }
+
+    /** End the timing started with the last call to startTiming().
+     *  Report result if we are timing. */
+    void endTiming() {
+        if (_timing) {
+            long time = System.currentTimeMillis() - _startTime;
+            System.err.printf("[%d msec]%n", time);
+            _maxTime = Math.max(_maxTime, time);
+            _totalTime += time;
+            _numTimedOps += 1;
+        }
+    }
+
+    /** Report total time statistics, if timing. */
+    void reportTotalTimes() {
+        if (_timing && _numTimedOps > 0) {
+            System.err.printf("[Total time: %d msec for %d operations. "
+                              + "Avg: %d msec/operation. "
+                              + "Max: %d msec]%n", _totalTime,
+                              _numTimedOps, _totalTime / _numTimedOps,
+                              _maxTime);
+        }
+    }
+
+    /** Return true iff AIs should collect statistics of their searches
+     *  (see SearchStats). */
+    boolean collectingStats() {
+        return _collectingStats;
+    }
+
+    /** Record STATS as the statistics of the latest AI search. */
+    void setLastSearchStats(SearchStats stats) {
+        _lastSearchStats = stats;
+    }
+
+    /** Return a pool of searchThreads() - 1 threads on which AIs may run
+     *  helper searches.  Its threads are daemons, so they do not keep the
+     *  program alive. */
+    ExecutorService searchPool() {
+        if (_searchPool == null) {
+            _searchPool =
+                Executors.newFixedThreadPool(_searchThreads - 1, r -> {
+                    Thread t = new Thread(r, "qirkat-search");
+                    t.setDaemon(true);
+                    return t;
+                });
+        }
+        return _searchPool;
     }
 
     /** Return random integer between 0 (inclusive) and MAX>0 (exclusive). */
@@ -151,7 +355,7 @@ class Game {
         InputStream helpIn =
             Game.class.getClassLoader().getResourceAsStream("qirkat/help.txt");
         if (helpIn == null) {
-            System.err.println("No help available.");
+            reportError("No help available.");
         } else {
             try {
                 BufferedReader r
@@ -161,7 +365,7 @@ class Game {
                     if (line == null) {
                         break;
                     }
-                    System.out.println(line);
+                    _output.println(line);
                 }
                 r.close();
             } catch (IOException e) {
@@ -172,17 +376,19 @@ class Game {
 
     /** Perform the command 'load OPERANDS[0]'. */
     void doLoad(String[] operands) {
+        checkFiles();
         try {
             FileReader reader = new FileReader(operands[0]);
             ReaderSource r = new ReaderSource(reader, false);
             String currLine;
-            while ((currLine = r.getLine("nil")) != null) {
+            while (_state != FINISHED
+                   && (currLine = r.getLine("nil")) != null) {
                 if (_state == SETUP) {
                     Command cmnd =
                             Command.parseCommand(currLine);
                     _commands.get(cmnd.commandType()).accept(cmnd.operands());
                 } else {
-                    getMoveCmnd(currLine);
+                    perform(currLine);
                 }
             }
         } catch (IOException e) {
@@ -200,10 +406,9 @@ class Game {
         }
     }
 
-    /** Exit the program. */
+    /** End the session (see process). */
     void doQuit(String[] unused) {
-        Main.reportTotalTimes();
-        System.exit(0);
+        _state = FINISHED;
     }
 
     /** Perform the command 'start'. */
@@ -214,7 +419,9 @@ class Game {
     /** Perform the move OPERANDS[0]. */
     void doMove(String[] operands) {
         Move moveToDo = Move.parseMove(operands[0]);
-        _board.makeMove(moveToDo);
+        if (!_board.makeMove(moveToDo)) {
+            reportError("Not a legal move");
+        }
     }
 
     /** Perform the command 'clear'. */
@@ -236,9 +443,39 @@ class Game {
 
     /** Perform the command 'dump'. */
     void doDump(String[] unused) {
-        System.out.println("===");
-        System.out.println(_board.toString());
-        System.out.println("===");
+        _output.println("===");
+        _output.println(_board.toString());
+        _output.println("===");
+    }
+
+    /** Perform the command 'perft OPERANDS[0]', printing the number of
+     *  sequences of OPERANDS[0] moves from the current position. */
+    void doPerft(String[] operands) {
+        Perft.report(_board, perftDepth(operands[0], 0), false,
+                     _output);
+    }
+
+    /** Perform the command 'divide OPERANDS[0]': as for 'perft', but
+     *  first print the count for each legal move. */
+    void doDivide(String[] operands) {
+        Perft.report(_board, perftDepth(operands[0], 1), true,
+                     _output);
+    }
+
+    /** Return the depth denoted by OPERAND, which must be at least
+     *  LEAST. */
+    private int perftDepth(String operand, int least) {
+        int depth;
+        try {
+            depth = Integer.parseInt(operand);
+        } catch (NumberFormatException e) {
+            depth = -1;
+        }
+        if (depth < least || depth > Perft.MAX_DEPTH) {
+            throw error("depth must be between %d and %d", least,
+                        Perft.MAX_DEPTH);
+        }
+        return depth;
     }
 
     /** Execute 'seed OPERANDS[0]' command, where the operand is a string
@@ -252,6 +489,136 @@ class Game {
         }
     }
 
+    /** Execute 'hash OPERANDS[0]' command, setting the size of the AIs'
+     *  transposition table to OPERANDS[0] megabytes, which must not
+     *  exceed the limit set by limitHash. */
+    void doHash(String[] operands) {
+        if (!operands[0].matches("\\d+")) {
+            throw error("table size must be a number of megabytes");
+        }
+        int megabytes;
+        try {
+            megabytes = Integer.parseInt(operands[0]);
+        } catch (NumberFormatException e) {
+            megabytes = Integer.MAX_VALUE;
+        }
+        if (megabytes > _maxHashMegabytes) {
+            throw error("table size must be between 0 and %d megabytes",
+                        _maxHashMegabytes);
+        }
+        _hashMegabytes = megabytes;
+        _table = null;
+    }
+
+    /** Execute 'time OPERANDS[0]' command, limiting AIs to OPERANDS[0]
+     *  milliseconds per move (0 for no limit). */
+    void doTime(String[] operands) {
+        long moveTime;
+        try {
+            moveTime = Long.parseLong(operands[0]);
+        } catch (NumberFormatException e) {
+            moveTime = -1;
+        }
+        if (moveTime < 0 || moveTime > MAX_MOVE_TIME) {
+            throw error("time limit must be between 0 and %d milliseconds",
+                        MAX_MOVE_TIME);
+        }
+        _moveTime = moveTime;
+    }
+
+    /** Execute 'weights [OPERANDS[0]] OPERANDS[1]' command, having the
+     *  AI for color OPERANDS[0] (both, if it is null) evaluate positions
+     *  with the weights in file OPERANDS[1]. */
+    void doWeights(String[] operands) {
+        checkFiles();
+        Evaluator evaluator;
+        try {
+            evaluator = Evaluator.load(new File(operands[1]));
+        } catch (IllegalArgumentException excp) {
+            throw error(excp.getMessage());
+        }
+        if (operands[0] == null || operands[0].equalsIgnoreCase("white")) {
+            setEvaluator(WHITE, evaluator);
+        }
+        if (operands[0] == null || operands[0].equalsIgnoreCase("black")) {
+            setEvaluator(BLACK, evaluator);
+        }
+    }
+
+    /** Execute 'book OPERANDS[0]' command, having AIs play from the
+     *  default opening book if OPERANDS[0] is 'on', from none if it is
+     *  'off', and otherwise from the book in file OPERANDS[0]. */
+    void doBook(String[] operands) {
+        if (operands[0].equalsIgnoreCase("on")) {
+            _book = OpeningBook.DEFAULT;
+        } else if (operands[0].equalsIgnoreCase("off")) {
+            _book = OpeningBook.EMPTY;
+        } else {
+            checkFiles();
+            try {
+                _book = OpeningBook.load(new File(operands[0]));
+            } catch (IllegalArgumentException excp) {
+                throw error(excp.getMessage());
+            }
+        }
+    }
+
+    /** Execute 'depth OPERANDS[0]' command, having AIs without a time
+     *  limit search OPERANDS[0] moves ahead. */
+    void doDepth(String[] operands) {
+        int depth;
+        try {
+            depth = Integer.parseInt(operands[0]);
+        } catch (NumberFormatException e) {
+            depth = 0;
+        }
+        if (depth < 1 || depth > MAX_SEARCH_DEPTH) {
+            throw error("search depth must be between 1 and %d",
+                        MAX_SEARCH_DEPTH);
+        }
+        _searchDepth = depth;
+    }
+
+    /** Execute 'threads OPERANDS[0]' command, having AIs search with
+     *  OPERANDS[0] threads. */
+    void doThreads(String[] operands) {
+        int threads;
+        try {
+            threads = Integer.parseInt(operands[0]);
+        } catch (NumberFormatException e) {
+            threads = 0;
+        }
+        if (threads < 1 || threads > MAX_SEARCH_THREADS) {
+            throw error("number of threads must be between 1 and %d",
+                        MAX_SEARCH_THREADS);
+        }
+        _searchThreads = threads;
+        close();
+    }
+
+    /** Release the threads on which AIs run helper searches, if any.
+     *  They are created again if needed. */
+    void close() {
+        if (_searchPool != null) {
+            _searchPool.shutdown();
+            _searchPool = null;
+        }
+    }
+
+    /** Execute 'stats [OPERANDS[0]]' command.  With operand 'on' or
+     *  'off', start or stop having AIs collect statistics of their
+     *  searches and print them after each move they make.  Otherwise,
+     *  print the statistics of the latest search. */
+    void doStats(String[] operands) {
+        if (operands[0] != null) {
+            _collectingStats = operands[0].equalsIgnoreCase("on");
+        } else if (_lastSearchStats == null) {
+            throw error("no search statistics (use 'stats on')");
+        } else {
+            _output.println(_lastSearchStats);
+        }
+    }
+
     /** Execute the artificial 'error' command. */
     void doError(String[] unused) {
         throw error("Command not understood");
@@ -288,9 +655,18 @@ class Game {
         _commands.put(MANUAL, this::doManual);
         _commands.put(PIECEMOVE, this::doMove);
         _commands.put(SEED, this::doSeed);
+        _commands.put(HASH, this::doHash);
+        _commands.put(TIME, this::doTime);
+        _commands.put(THREADS, this::doThreads);
+        _commands.put(DEPTH, this::doDepth);
+        _commands.put(WEIGHTS, this::doWeights);
+        _commands.put(BOOK, this::doBook);
         _commands.put(SETBOARD, this::doSet);
         _commands.put(START, this::doStart);
         _commands.put(LOAD, this::doLoad);
+        _commands.put(PERFT, this::doPerft);
+        _commands.put(DIVIDE, this::doDivide);
+        _commands.put(STATS, this::doStats);
         _commands.put(QUIT, this::doQuit);
         _commands.put(ERROR, this::doError);
         _commands.put(EOF, this::doQuit);
@@ -301,14 +677,70 @@ class Game {
 
     /** My board and its read-only view. */
     private Board _board, _constBoard;
+    /** The AIs playing the game in progress (null for manual
+     *  players). */
+    private AI _white, _black;
+    /** True iff _white and _black have been chosen for the game in
+     *  progress. */
+    private boolean _playersChosen;
     /** Indicate which players are manual players (as opposed to AIs). */
     private boolean _whiteIsManual, _blackIsManual;
     /** true if white, false if black. */
     private boolean _whoseTurn;
     /** Current game state. */
     private State _state;
+    /** Where the output of commands goes. */
+    private final PrintStream _output;
     /** Used to send messages to the user. */
     private Reporter _reporter;
+    /** Size of the AIs' transposition table, in megabytes. */
+    private int _hashMegabytes = TranspositionTable.DEFAULT_MEGABYTES;
+    /** True iff commands may not read files. */
+    private boolean _filesForbidden;
+    /** Largest size allowed for the AIs' transposition table, in
+     *  megabytes. */
+    private int _maxHashMegabytes = TranspositionTable.MAX_MEGABYTES;
+    /** Time limit on AI moves in milliseconds (0 for none). */
+    private long _moveTime;
+    /** Largest time limit allowed, in milliseconds (one day). */
+    static final long MAX_MOVE_TIME = 24L * 60 * 60 * 1000;
+    /** Largest search depth allowed. */
+    static final int MAX_SEARCH_DEPTH = 64;
+    /** Depth of AI searches without a time limit. */
+    private int _searchDepth = AI.MAX_DEPTH;
+    /** Largest number of search threads allowed. */
+    static final int MAX_SEARCH_THREADS = 256;
+    /** Evaluators of the white and black AIs. */
+    private Evaluator _whiteEvaluator = Evaluator.DEFAULT,
+        _blackEvaluator = Evaluator.DEFAULT;
+    /** Opening book of the AIs. */
+    private OpeningBook _book = OpeningBook.DEFAULT;
+    /** Number of threads with which AIs search. */
+    private int _searchThreads = 1;
+    /** True iff AIs should collect statistics of their searches. */
+    private boolean _collectingStats;
+    /** Statistics of the latest AI search, or null if none. */
+    private SearchStats _lastSearchStats;
+    /** Threads for helper searches, or null if not yet created. */
+    private ExecutorService _searchPool;
+    /** Permits for search threads shared with other games, or null. */
+    private Semaphore _searchSlots;
+    /** Number of permits of _searchSlots in all. */
+    private int _searchSlotsSize;
+    /** Number of permits taken by the current search. */
+    private int _searchPermits;
+    /** Search results shared by the AIs, or null if not yet created. */
+    private TranspositionTable _table;
+    /** True iff AIs should time their moves. */
+    private boolean _timing;
+    /** Accumulated time. */
+    private long _totalTime;
+    /** Last start time. */
+    private long _startTime;
+    /** Number of operations timed. */
+    private int _numTimedOps;
+    /** Maximum operation time. */
+    private long _maxTime;
     /** Source of pseudo-random numbers (used by AIs). */
     private Random _randoms = new Random();
 }
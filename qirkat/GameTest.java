@@ -0,0 +1,74 @@
+package qirkat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Tests of game sessions.
+ *  @author Adish Jain
+ */
+public class GameTest {
+
+    /** Commands of a session in which two AIs play a game. */
+    private static final String SELF_PLAY =
+        "seed 1\ndepth 2\nauto White\nstart\ndump\nquit\nstart\n";
+
+    /** Run a session reading commands from SCRIPT, and return its
+     *  output. */
+    private static String run(String script) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true);
+        Game game = new Game(new Board(),
+                             new ReaderSource(new StringReader(script),
+                                              false),
+                             new TextReporter(out), out);
+        game.process();
+        assertEquals(Game.State.FINISHED, game.getState());
+        return bytes.toString();
+    }
+
+    @Test
+    public void testQuit() {
+        assertEquals("===\n" + new Board() + "\n===\n",
+                     run("dump\nquit\ndump\n").replace("\r", ""));
+        assertEquals("", run(""));
+    }
+
+    @Test
+    public void testTimeLimitRange() {
+        String error = String.format("time limit must be between 0 and %d "
+                                     + "milliseconds\n", Game.MAX_MOVE_TIME);
+        assertEquals(error, run("time 9223372036854775807\n"));
+        assertEquals(error, run("time " + (Game.MAX_MOVE_TIME + 1) + "\n"));
+        assertEquals("", run("time " + Game.MAX_MOVE_TIME + "\n"));
+    }
+
+    @Test
+    public void testIllegalSetupMove() {
+        assertEquals("Not a legal move\n===\n" + new Board() + "\n===\n",
+                     run("c2-c5\ndump\n").replace("\r", ""));
+    }
+
+    @Test
+    public void testConcurrentSessions() throws InterruptedException {
+        String expected = run(SELF_PLAY);
+        assertTrue(expected, expected.contains(" wins."));
+        final int sessions = 4;
+        String[] outputs = new String[sessions];
+        Thread[] threads = new Thread[sessions];
+        for (int i = 0; i < sessions; i += 1) {
+            final int k = i;
+            threads[i] = new Thread(() -> outputs[k] = run(SELF_PLAY));
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (String output : outputs) {
+            assertEquals(expected, output);
+        }
+    }
+}
@@ -10,19 +10,31 @@ import java.io.PipedWriter;
 public class Main {
 
     /** Run Qirkat game.  Use display if ARGS[k] is '--display', timing
-     *  if ARGS[k] is "--timing". */
+     *  if ARGS[k] is "--timing".  If ARGS[k] is "--serve", instead serve
+     *  games to clients connecting to port ARGS[k+1] (see Server). */
     public static void main(String[] args) {
-        boolean useGUI;
+        boolean useGUI, timing;
+        int port;
         System.out.println("CS61B Qirkat! Version 2.0");
         useGUI = false;
-        _timing = false;
+        timing = false;
+        port = -1;
         for (int i = 0; i < args.length; i += 1) {
             switch (args[i]) {
             case "--display":
                 useGUI = true;
                 break;
             case "--timing":
-                _timing = true;
+                timing = true;
+                break;
+            case "--serve":
+                i += 1;
+                try {
+                    port = Integer.parseInt(args[i]);
+                } catch (NumberFormatException
+                         | ArrayIndexOutOfBoundsException excp) {
+                    usage();
+                }
                 break;
             default:
                 usage();
@@ -30,6 +42,11 @@ public class Main {
             }
         }
 
+        if (port >= 0) {
+            serve(port);
+            return;
+        }
+
         Game game;
         Board board = new Board();
 
@@ -57,63 +74,30 @@ public class Main {
                                              true),
                             new TextReporter());
         }
+        game.setTiming(timing);
         game.process();
     }
 
+    /** Serve games on PORT until killed. */
+    static void serve(int port) {
+        try {
+            Server server = new Server(port);
+            System.out.printf("Serving on port %d.%n", server.port());
+            server.serve();
+        } catch (IOException excp) {
+            System.err.printf("Could not serve on port %d: %s%n", port,
+                              excp.getMessage());
+            System.exit(1);
+        }
+    }
+
     /** Give usage message and exit. */
     static void usage() {
         System.err.println("Usage: java qirkat.Main [--display] [--timing]"
-                           + " [--strict]");
+                           + " [--strict] [--serve PORT]");
         System.exit(1);
     }
 
-    /* TIMING */
-
-    /** Start timing an operation. */
-    static void startTiming() {
-        if (_timing) {
-            _startTime = System.currentTimeMillis();
-        }
-    }
-
-    /** End the timing started with the last call to startTiming().
-     *  Report result if we are timing. */
-    static void endTiming() {
-        if (_timing) {
-            long time = System.currentTimeMillis() - _startTime;
-            System.err.printf("[%d msec]%n", time);
-            _maxTime = Math.max(_maxTime, time);
-            _totalTime += time;
-            _numTimedOps += 1;
-        }
-    }
-
-    /** Report total time statistics, if timing. */
-    static void reportTotalTimes() {
-        if (_timing && _numTimedOps > 0) {
-            System.err.printf("[Total time: %d msec for %d operations. "
-                              + "Avg: %d msec/operation. "
-                              + "Max: %d msec]%n", _totalTime,
-                              _numTimedOps, _totalTime / _numTimedOps,
-                              _maxTime);
-        }
-    }
-
-    /** True iff AIs should time. */
-    private static boolean _timing;
-
-    /** Accumulated time. */
-    private static long _totalTime;
-
-    /** Last start time. */
-    private static long _startTime;
-
-    /** Number of operations timed. */
-    private static int _numTimedOps;
-
-    /** Maximum operation time. */
-    private static long _maxTime;
-
     /** Size of the buffer for reading commands from a GUI (bytes). */
     private static final int BUFFER_LEN = 128;
 
@@ -1,4 +1,5 @@
 package qirkat;
+import java.util.ArrayList;
 import ucb.junit.textui;
 import static org.junit.Assert.*;
 import org.junit.Test;
@@ -89,6 +90,109 @@ public class MoreBoardTests {
         assertEquals(c, b);
     }
 
+    @Test
+    public void testQuickMoveUndo() {
+        Board b = new Board();
+        b.setPieces("----- -w--- -bbb- ----- -----", PieceColor.WHITE);
+        String before = b.toString();
+        String movesBefore = b.getMoves().toString();
+        b.makeQuickMove(Move.parseMove("b2-b4-d2-d4"));
+        assertEquals("  - - - - -\n  - - - w -\n  - - - - -\n"
+                + "  - - - - -\n  - - - - -", b.toString());
+        assertEquals(PieceColor.BLACK, b.whoseMove());
+        b.undo();
+        assertEquals(before, b.toString());
+        assertEquals(PieceColor.WHITE, b.whoseMove());
+        assertEquals(movesBefore, b.getMoves().toString());
+    }
+
+    @Test
+    public void testLegalMove() {
+        Board b = new Board();
+        assertTrue(b.legalMove(Move.parseMove("c2-c3")));
+        assertTrue(b.legalMove(Move.parseMove("d2-c3")));
+        assertFalse("wrong color", b.legalMove(Move.parseMove("c4-c3")));
+        assertFalse("occupied", b.legalMove(Move.parseMove("c2-c1")));
+        assertFalse("no diagonal", b.legalMove(Move.parseMove("c2-b3")));
+        b.setPieces("----- -w--- -bbb- ----- b----", PieceColor.WHITE);
+        assertTrue(b.legalMove(Move.parseMove("b2-b4-d2-d4")));
+        assertTrue(b.legalMove(Move.parseMove("b2-d4-d2")));
+        assertFalse("incomplete", b.legalMove(Move.parseMove("b2-b4-d2")));
+        assertTrue(b.checkJump(Move.parseMove("b2-b4-d2"), true));
+        assertFalse("capture required", b.legalMove(Move.parseMove("b2-a2")));
+        assertFalse("no capture", b.legalMove(Move.parseMove("b2-d2")));
+        ArrayList<Move> moves = b.getMoves();
+        assertTrue(Board.legalMove(Move.parseMove("b2-b4-d2-d4"), moves));
+        assertFalse(Board.legalMove(Move.parseMove("b2-b4-d2"), moves));
+    }
+
+    @Test
+    public void testUndoRestoresHorizontalLimits() {
+        Board b = new Board();
+        b.setPieces("----- ----- -w--- ----- ----b", PieceColor.WHITE);
+        b.makeMove('b', '3', 'c', '3');
+        b.makeMove('e', '5', 'e', '4');
+        String moves = b.getMoves().toString();
+        assertFalse(moves.contains("c3-b3"));
+        b.makeQuickMove(Move.parseMove("c3-c4"));
+        b.undo();
+        assertEquals(moves, b.getMoves().toString());
+    }
+
+    @Test
+    public void testSearchDoesNotNotify() {
+        Board b = new Board();
+        int[] updates = new int[1];
+        b.addObserver((obs, arg) -> updates[0] += 1);
+        b.getMoves();
+        b.makeQuickMove(Move.parseMove("c2-c3"));
+        b.getMoves();
+        b.undo();
+        assertEquals(0, updates[0]);
+        b.makeMove('c', '2', 'c', '3');
+        assertEquals(1, updates[0]);
+        Board search = b.searchBoard();
+        assertEquals(0, search.countObservers());
+        assertEquals(b.toString(), search.toString());
+    }
+
+    @Test
+    public void testTranspositionsEqual() {
+        String start = "w---w ----- ----- ----- b---b";
+        Board b1 = new Board(), b2 = new Board(), b3 = new Board();
+        b1.setPieces(start, currMove);
+        b2.setPieces(start, currMove);
+        for (String m : new String[] { "a1-a2", "a5-a4", "e1-e2", "e5-e4" }) {
+            b1.makeMove(Move.parseMove(m));
+        }
+        for (String m : new String[] { "e1-e2", "e5-e4", "a1-a2", "a5-a4" }) {
+            b2.makeMove(Move.parseMove(m));
+        }
+        b3.setPieces("----- w---w ----- b---b -----", currMove);
+        assertEquals(b1, b2);
+        assertEquals(b1, b3);
+        assertEquals(b1.key(), b2.key());
+        assertEquals(b1.key(), b3.key());
+        assertEquals(b1.hashCode(), b3.hashCode());
+
+        b1.makeMove(Move.parseMove("a2-b2"));
+        b1.makeMove(Move.parseMove("a4-b4"));
+        b3.setPieces("----- -w--w ----- -b--b -----", currMove);
+        assertNotEquals(b1, b3);
+        assertNotEquals(b1.key(), b3.key());
+        b1.undo();
+        b1.undo();
+        assertEquals(b1, b2);
+        assertEquals(b1.key(), b2.key());
+
+        b1.setPieces("--w-- --w-- ---b- ----- ----b", PieceColor.BLACK);
+        b1.makeMove(Move.parseMove("d3-c3"));
+        b1.makeMove(Move.parseMove("c2-c4"));
+        b3.setPieces("--w-- ----- ----- --w-- ----b", PieceColor.BLACK);
+        assertEquals(b3, b1);
+        assertEquals(b3.key(), b1.key());
+    }
+
 
     public static void main(String[] ignored) {
         System.exit(textui.runClasses(MoreBoardTests.class));
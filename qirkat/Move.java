@@ -2,8 +2,7 @@ package qirkat;
 
 import static java.lang.Math.abs;
 import java.util.Formatter;
-import java.util.HashMap;
-import java.util.function.Function;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
 
@@ -39,53 +38,76 @@ class Move {
      * one. Moves themselves are immutable, and for any possible move,
      * there is exactly one object of type Move. */
 
-    /* To avoid creating Move objects that are not needed, we maintain
-     * a static variable, _staged containing a Move object.  The move
-     * factory methods then sets the fields of this object before looking to
-     * to see if there is already a Move object with the same parameters.
-     * If there is, the move methods will simply return it, thus allowing
-     * _staged to be reused on the next call without having to create a
-     * new Move object.  Otherwise, we use the _staged object itself as the
-     * new Move, and set the variable to null so that we create a new
-     * Move on the next call to move. There is a drawback: since there
-     * is at most one _staged object at any time, at most one call to move
-     * may execute simultaneously.  Otherwise, two the methods may attempt
-     * to use the same Move object for two different Moves, which clearly
-     * will not work.  Therefore, we indicate in the comments that a number
-     * of the operations are not "thread safe". Fortunately, you'll not run
-     * into this problem as long as you don't do anything fancy (such as
-     * trying to make your AI a parallel program).
-     */
-
-    /** The move constructor, made private to prevent its use except in
-     *  this class. */
-    private Move() {
+    /* Because moves are created from many search threads at once, the
+     * factory must be safe to call concurrently, and because it is called
+     * constantly, it should neither lock nor allocate once a move has been
+     * seen.  There are only SIDE**4 single-leg moves, so all are created
+     * in advance in the immutable table SINGLES.  A multi-leg jump is
+     * determined by its starting square and the jump that follows its
+     * first leg, so each jump keeps a table, _extensions, of the chains
+     * that begin with one more leg and continue with it.  Entries are
+     * filled in with compareAndSet, so that if two threads create the
+     * same chain at once, both get the one that was stored first and
+     * there is still exactly one Move for each distinct move.  The
+     * factory holds nothing but Moves, of which there are a fixed, finite
+     * number, so any number of games may share it without interfering
+     * and without its memory growing beyond that needed for the moves
+     * they actually make. */
+
+    /** The Move COL0 ROW0 - COL1 ROW1 - NEXTJUMP, made private to
+     *  prevent its use except in this class. */
+    private Move(char col0, char row0, char col1, char row1,
+                 Move nextJump) {
+        assert col0 >= 'a' && row0 >= '1' && col1 >= 'a' && row1 >= '1'
+            && col0 <= 'e' && row0 <= '5' && col1 <= 'e' &&  row1 <= '5';
+        _col0 = col0;
+        _row0 = row0;
+        _col1 = col1;
+        _row1 = row1;
+        _fromIndex = (byte) index(col0, row0);
+        _toIndex = (byte) index(col1, row1);
+        _isJump = abs(col0 - col1) > 1 || abs(row0 - row1) > 1;
+        if (_isJump) {
+            _jumpedCol = (char) ((col0 + col1) / 2);
+            _jumpedRow = (char) ((row0 + row1) / 2);
+        } else {
+            _jumpedCol = col1;
+            _jumpedRow = row1;
+        }
+        _jumpedIndex = (byte) index(_jumpedCol, _jumpedRow);
+        _nextJump = nextJump;
+        _extensions =
+            _isJump ? new AtomicReferenceArray<>(MAX_INDEX + 1) : null;
     }
 
     /** A factory method that returns a Move from COL0 ROW0 to COL1 ROW1,
      *  followed by NEXTJUMP, if this move is a jump. Assumes the column
      *  and row designations are valid and that NEXTJUMP is null for a
-     *  non-capturing move.  Not thread-safe. */
+     *  non-capturing move. */
     static Move move(char col0, char row0, char col1, char row1,
                      Move nextJump) {
-        if (_staged == null) {
-            _staged = new Move();
+        int from = index(col0, row0), to = index(col1, row1);
+        Move first = SINGLES[from][to];
+        if (nextJump == null) {
+            return first;
         }
-        _staged.set(col0, row0, col1, row1, nextJump);
-        if (_staged.isJump() && nextJump != null && !nextJump.isJump()) {
-            throw new IllegalArgumentException("bad jump");
-        } else if (!_staged.isJump() && nextJump != null) {
+        if (!first.isJump() || !nextJump.isJump()
+            || nextJump._fromIndex != to) {
             throw new IllegalArgumentException("bad jump");
         }
-        Move result = _internedMoves.computeIfAbsent(_staged, IDENTITY);
-        if (result == _staged) {
-            _staged = null;
+        Move result = nextJump._extensions.get(from);
+        if (result == null) {
+            Move fresh = new Move(col0, row0, col1, row1, nextJump);
+            if (nextJump._extensions.compareAndSet(from, null, fresh)) {
+                result = fresh;
+            } else {
+                result = nextJump._extensions.get(from);
+            }
         }
         return result;
     }
 
-    /** Return a single move or jump from (COL0, ROW0) to (COL1, ROW1).
-     *  Not thread-safe. */
+    /** Return a single move or jump from (COL0, ROW0) to (COL1, ROW1). */
     static Move move(char col0, char row0, char col1, char row1) {
         return move(col0, row0, col1, row1, null);
     }
@@ -217,53 +239,13 @@ class Move {
     /** For a jump, returns the row of the jumped-over square for the
      *  first leg of the jump.  For a non-capturing move, same as row1(). */
     char jumpedRow() {
-        char[] rows = {'1', '2', '3', '4', '5'};
-        char[] cols = {'a', 'b', 'c', 'd', 'e'};
-        if (isJump()) {
-            if (this._row1 == this._row0) {
-                return this._row1;
-            }
-            if (this._row1 > this._row0) {
-                for (int i = 0; i < rows.length; i++) {
-                    if (rows[i] == this._row1) {
-                        return rows[i - 1];
-                    }
-                }
-            }  else {
-                for (int i = 0; i < rows.length; i++) {
-                    if (rows[i] == this._row1) {
-                        return rows[i + 1];
-                    }
-                }
-            }
-        }
-        return row1();
+        return _jumpedRow;
     }
 
     /** For a jump, returns the column of the jumped-over square for the
      *  first leg of the jump.  For a non-capturing move, same as col1(). */
     char jumpedCol() {
-        char[] rows = {'1', '2', '3', '4', '5'};
-        char[] cols = {'a', 'b', 'c', 'd', 'e'};
-        if (isJump()) {
-            if (this._col1 == this._col0) {
-                return this._col1;
-            }
-            if (this._col1 > this._col0) {
-                for (int i = 0; i < cols.length; i++) {
-                    if (cols[i] == this._col1) {
-                        return cols[i - 1];
-                    }
-                }
-            } else {
-                for (int i = 0; i < cols.length; i++) {
-                    if (cols[i] == this._col1) {
-                        return cols[i + 1];
-                    }
-                }
-            }
-        }
-        return col1();
+        return _jumpedCol;
     }
 
     /** Return the linearized index of my source square. */
@@ -278,7 +260,7 @@ class Move {
 
     /** Return the linearized index of (jumpedCol(), jumpedRow()). */
     int jumpedIndex() {
-        return index(jumpedCol(), jumpedRow());
+        return _jumpedIndex;
     }
 
     /** Return the second and subsequent jumps comprising this jump, or null
@@ -360,51 +342,43 @@ class Move {
 
     }
 
-    /** Set me to COL0 ROW0 - COL1 ROW1 - NEXTJUMP. */
-    private void set(char col0, char row0, char col1, char row1,
-                     Move nextJump) {
-        assert col0 >= 'a' && row0 >= '1' && col1 >= 'a' && row1 >= '1'
-            && col0 <= 'e' && row0 <= '5' && col1 <= 'e' &&  row1 <= '5';
-        _col0 = col0;
-        _row0 = row0;
-        _col1 = col1;
-        _row1 = row1;
-        _fromIndex = (byte) index(col0, row0);
-        _toIndex = (byte) index(col1, row1);
-        _isJump = abs(col0 - col1) > 1 || abs(row0 - row1) > 1;
-        _nextJump = nextJump;
-        assert (_isJump
-                && (nextJump == null
-                    || (nextJump.isJump()
-                        && col1 == nextJump.col0()
-                        && row1 == nextJump.row0())))
-            || (!_isJump && nextJump == null);
-    }
-
     /** Linearized indices. */
-    private byte _fromIndex, _toIndex;
+    private final byte _fromIndex, _toIndex;
 
     /** True iff move is a jump. */
-    private boolean _isJump;
+    private final boolean _isJump;
 
     /** From and to squares, or 0s if a pass. */
-    private char _col0, _row0, _col1, _row1;
-
-    /** For a jump, the Move representing the jumps following the
-     *  initial jump. */
-    private Move _nextJump;
-
-    /* Used for the Move factory. */
+    private final char _col0, _row0, _col1, _row1;
 
-    /** Holds the next Move object to be added to _internedMoves.
-     *  The factory method move tentatively fills it in, and then returns
-     *  it if it is unique (resetting _staged to null). */
-    private static Move _staged;
+    /** The square jumped over by the first leg (see jumpedCol and
+     *  jumpedRow). */
+    private final char _jumpedCol, _jumpedRow;
 
-    /** The set of all distinct moves generated so far. */
-    private static HashMap<Move, Move> _internedMoves = new HashMap<>();
+    /** The linearized index of _jumpedCol, _jumpedRow. */
+    private final byte _jumpedIndex;
 
-    /** The identity function on Moves. */
-    static final Function<Move, Move> IDENTITY = k -> k;
+    /** For a jump, the Move representing the jumps following the
+     *  initial jump. */
+    private final Move _nextJump;
+
+    /** For a jump, the multi-leg jumps consisting of a single jump
+     *  from square k to my starting square followed by me, indexed by
+     *  k, or null if not yet created.  Null for a non-capturing move. */
+    private final AtomicReferenceArray<Move> _extensions;
+
+    /** All single-leg moves (including vestigial ones), indexed by the
+     *  linearized indices of their starting and ending squares. */
+    private static final Move[][] SINGLES =
+        new Move[MAX_INDEX + 1][MAX_INDEX + 1];
+
+    static {
+        for (int from = 0; from <= MAX_INDEX; from += 1) {
+            for (int to = 0; to <= MAX_INDEX; to += 1) {
+                SINGLES[from][to] =
+                    new Move(col(from), row(from), col(to), row(to), null);
+            }
+        }
+    }
 
 }
@@ -0,0 +1,144 @@
+package qirkat;
+
+import static qirkat.Board.*;
+import static qirkat.Move.*;
+
+/** Moves encoded as primitive longs ("move codes"), for use where Move
+ *  objects would cost too much, as in move generation and search.  A
+ *  code is built and taken apart with arithmetic alone, never touching
+ *  the intern table of Move.
+ *
+ *  A code records the starting square of a move, whether it is a jump,
+ *  and the direction (see Board.DIRECTIONS) of each of its legs, in
+ *  order.  Non-capturing moves have one leg of one step; each leg of a
+ *  jump is two steps.  Bits 0-4 hold the starting square, bit 5 is set
+ *  for jumps, bits 6-9 hold the number of legs, and leg I's direction is
+ *  in the three bits starting at bit 10 + 3I.  Each move has exactly one
+ *  code, so codes may be compared with ==, and no move has the code
+ *  NONE.
+ *  @author Adish Jain
+ */
+class MoveCode {
+
+    /** A code denoting no move. */
+    static final long NONE = 0;
+
+    /** Largest number of legs in a coded move. */
+    static final int MAX_LEGS = 15;
+
+    /** Return the code of the non-capturing move from square FROM one
+     *  step in direction DIR. */
+    static long step(int from, int dir) {
+        return from | (1L << LEGS_SHIFT) | ((long) dir << DIR_SHIFT);
+    }
+
+    /** Return the code of the single jump from square FROM in direction
+     *  DIR. */
+    static long jump(int from, int dir) {
+        return step(from, dir) | JUMP_BIT;
+    }
+
+    /** Return the code of the jump CODE followed by a further jump in
+     *  direction DIR from where it lands. */
+    static long extend(long code, int dir) {
+        int legs = legs(code);
+        assert isJump(code) && legs < MAX_LEGS;
+        return (code & ~LEGS_MASK) | ((long) (legs + 1) << LEGS_SHIFT)
+            | ((long) dir << (DIR_SHIFT + DIR_BITS * legs));
+    }
+
+    /** Return the starting square of CODE. */
+    static int from(long code) {
+        return (int) code & SQUARE_MASK;
+    }
+
+    /** Return true iff CODE is a jump. */
+    static boolean isJump(long code) {
+        return (code & JUMP_BIT) != 0;
+    }
+
+    /** Return the number of legs of CODE. */
+    static int legs(long code) {
+        return (int) ((code & LEGS_MASK) >>> LEGS_SHIFT);
+    }
+
+    /** Return the direction of leg LEG (numbered from 0) of CODE. */
+    static int direction(long code, int leg) {
+        return (int) (code >>> (DIR_SHIFT + DIR_BITS * leg)) & DIR_MASK;
+    }
+
+    /** Return the number of squares moved by each leg of CODE. */
+    static int stride(long code) {
+        return isJump(code) ? 2 : 1;
+    }
+
+    /** Return the square on which CODE ends. */
+    static int to(long code) {
+        int k = from(code), stride = stride(code);
+        for (int i = legs(code) - 1; i >= 0; i -= 1) {
+            k += stride * DELTA[direction(code, i)];
+        }
+        return k;
+    }
+
+    /** Return the code of MOV, which must be a non-vestigial move. */
+    static long encode(Move mov) {
+        long code = NONE;
+        for (Move leg = mov; leg != null; leg = leg.jumpTail()) {
+            int dir = direction(leg.fromIndex(), leg.toIndex());
+            if (code == NONE) {
+                code = leg.isJump() ? jump(leg.fromIndex(), dir)
+                    : step(leg.fromIndex(), dir);
+            } else {
+                code = extend(code, dir);
+            }
+        }
+        return code;
+    }
+
+    /** Return the Move denoted by CODE, which must not be NONE. */
+    static Move toMove(long code) {
+        int legs = legs(code), stride = stride(code);
+        int[] squares = new int[legs + 1];
+        squares[0] = from(code);
+        for (int i = 0; i < legs; i += 1) {
+            squares[i + 1] = squares[i] + stride * DELTA[direction(code, i)];
+        }
+        Move result = null;
+        for (int i = legs - 1; i >= 0; i -= 1) {
+            result = move(col(squares[i]), row(squares[i]),
+                          col(squares[i + 1]), row(squares[i + 1]), result);
+        }
+        return result;
+    }
+
+    /** Return the direction from square FROM toward square TO, which
+     *  must lie on a line through FROM in one of the directions. */
+    private static int direction(int from, int to) {
+        int dc = Integer.signum(to % SIDE - from % SIDE),
+            dr = Integer.signum(to / SIDE - from / SIDE);
+        for (int d = 0; d < DIRECTIONS; d += 1) {
+            if (COL_STEP[d] == dc && ROW_STEP[d] == dr) {
+                return d;
+            }
+        }
+        throw new IllegalArgumentException("not a move");
+    }
+
+    /** Layout of a code. */
+    private static final int
+        SQUARE_MASK = 0x1f,
+        LEGS_SHIFT = 6,
+        DIR_SHIFT = 10, DIR_BITS = 3, DIR_MASK = 0x7;
+
+    /** Bit set in the codes of jumps. */
+    private static final long JUMP_BIT = 1L << 5;
+
+    /** Mask of the leg count of a code. */
+    private static final long LEGS_MASK = 0xfL << LEGS_SHIFT;
+
+    /** Not instantiable. */
+    private MoveCode() {
+    }
+
+}
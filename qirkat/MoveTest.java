@@ -41,4 +41,86 @@ public class MoveTest {
         assertEquals("a3-a5-c3", parseMove("a3-a5-c3").toString());
         assertEquals("a3-a5-c3-e1", parseMove("a3-a5-c3-e1").toString());
     }
+
+    @Test
+    public void testJumped() {
+        Move m = parseMove("a3-a5-c3-e1");
+        assertEquals('a', m.jumpedCol());
+        assertEquals('4', m.jumpedRow());
+        assertEquals(index('a', '4'), m.jumpedIndex());
+        m = m.jumpTail();
+        assertEquals(index('b', '4'), m.jumpedIndex());
+        m = parseMove("c2-d3");
+        assertEquals('d', m.jumpedCol());
+        assertEquals('3', m.jumpedRow());
+        assertEquals(m.toIndex(), m.jumpedIndex());
+    }
+
+    @Test
+    public void testInterning() {
+        assertSame(move('a', '3', 'b', '2'), parseMove("a3-b2"));
+        assertSame(move('a', '3', 'a', '5', move('a', '5', 'c', '3')),
+                   parseMove("a3-a5-c3"));
+        assertSame(parseMove("a3-a5-c3-e1"),
+                   move(parseMove("a3-a5"), parseMove("a5-c3-e1")));
+    }
+
+    @Test
+    public void testConcurrentInterning() throws InterruptedException {
+        final int threads = 8;
+        final Move[] found = new Move[threads];
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i += 1) {
+            final int id = i;
+            workers[i] = new Thread(() -> {
+                found[id] = parseMove("e1-c1-c3-a3-a5");
+            });
+        }
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        for (Move m : found) {
+            assertSame(found[0], m);
+        }
+        assertEquals("e1-c1-c3-a3-a5", found[0].toString());
+    }
+
+    @Test
+    public void testMoveCodes() {
+        for (String str : new String[] {
+                "a3-b2", "c3-c4", "d2-e2", "a3-a5", "a3-a5-c3-e1",
+                "e1-c1-c3-a3-a5" }) {
+            Move m = parseMove(str);
+            long code = MoveCode.encode(m);
+            assertSame(m, MoveCode.toMove(code));
+            assertEquals(m.isJump(), MoveCode.isJump(code));
+            assertEquals(m.fromIndex(), MoveCode.from(code));
+            assertEquals(parseMove(str.substring(str.length() - 5))
+                         .toIndex(), MoveCode.to(code));
+        }
+        assertEquals(3, MoveCode.legs(MoveCode.encode(
+                         parseMove("a3-a5-c3-e1"))));
+    }
+
+    @Test
+    public void testMoveListSort() {
+        Board.MoveList moves = new Board.MoveList();
+        String[] denotations = { "c2-c3", "b2-c3", "d2-c3", "a3-a5-c3-e1",
+                                 "d3-c3" };
+        for (String denotation : denotations) {
+            moves.add(MoveCode.encode(parseMove(denotation)));
+        }
+        int[] keys = { 0, 5, 0, 9, 5 };
+        moves.sort(keys);
+        String[] expected = { "a3-a5-c3-e1", "b2-c3", "d3-c3", "c2-c3",
+                              "d2-c3" };
+        for (int i = 0; i < expected.length; i += 1) {
+            assertEquals(expected[i], MoveCode.toMove(moves.get(i))
+                         .toString());
+        }
+        assertArrayEquals(new int[] { 9, 5, 5, 0, 0 }, keys);
+    }
 }
@@ -0,0 +1,376 @@
+package qirkat;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+
+import static qirkat.PieceColor.*;
+
+/** A book of opening moves: for each of a set of positions, identified
+ *  by their Zobrist keys (see Board.key()), the good moves, each with a
+ *  weight giving how often an AI should choose it.  AIs play from the
+ *  book instead of searching while they can (see AI.myMove), choosing
+ *  among the moves at random in proportion to their weights, so that
+ *  the positions that every game starts from cost nothing and play
+ *  still varies.
+ *
+ *  Books are built offline, by deep searches (see build and main), and
+ *  stored in a compact binary file: the int MAGIC, the number of
+ *  entries, and then each entry (in order of key) as a long key, a long
+ *  MoveCode, and a short weight.  The default book, used by every Game
+ *  unless told otherwise, is read from the resource qirkat/book.bin
+ *  when this class is loaded; it is empty if there is no such resource.
+ *  @author Adish Jain
+ */
+class OpeningBook {
+
+    /** The first four bytes of a book file ("QkBk"). */
+    static final int MAGIC = 0x516b426b;
+
+    /** The book with no positions. */
+    static final OpeningBook EMPTY =
+        new OpeningBook(new long[0], new long[0], new int[0]);
+
+    /** The default book. */
+    static final OpeningBook DEFAULT = loadDefault();
+
+    /** Default number of moves from the initial position within which a
+     *  book covers every position. */
+    static final int DEFAULT_BROAD = 6;
+
+    /** Default number of moves from the initial position within which a
+     *  book covers the positions reached by its own moves. */
+    static final int DEFAULT_PLIES = 14;
+
+    /** Default depth of the searches that choose the moves of a
+     *  book. */
+    static final int DEFAULT_DEPTH = 10;
+
+    /** Default largest amount by which the value of a move in a book may
+     *  fall short of that of the best move. */
+    static final int DEFAULT_MARGIN = 20;
+
+    /** A book whose Ith entry gives move MOVES[I], with weight
+     *  WEIGHTS[I], for the position with key KEYS[I].  KEYS is in
+     *  increasing order. */
+    private OpeningBook(long[] keys, long[] moves, int[] weights) {
+        _keys = keys;
+        _moves = moves;
+        _weights = weights;
+    }
+
+    /** Return the number of entries (moves) in this book. */
+    int size() {
+        return _keys.length;
+    }
+
+    /** Return the number of positions in this book. */
+    int positions() {
+        int result = 0;
+        for (int i = 0; i < _keys.length; i += 1) {
+            if (i == 0 || _keys[i] != _keys[i - 1]) {
+                result += 1;
+            }
+        }
+        return result;
+    }
+
+    /** Return the number of moves for the position with key KEY. */
+    int moves(long key) {
+        return end(key) - start(key);
+    }
+
+    /** Return a move from this book for BOARD, chosen at random (using
+     *  GAME's random numbers) in proportion to the moves' weights, or null
+     *  if the book has none, or the move chosen is not legal (as when
+     *  another position has BOARD's key). */
+    Move probe(Board board, Game game) {
+        long key = board.key();
+        int start = start(key), end = end(key);
+        if (start == end) {
+            return null;
+        }
+        int total = 0;
+        for (int i = start; i < end; i += 1) {
+            total += _weights[i];
+        }
+        int r = game.nextRandom(total);
+        int i;
+        for (i = start; r >= _weights[i]; i += 1) {
+            r -= _weights[i];
+        }
+        Move move = MoveCode.toMove(_moves[i]);
+        return board.legalMove(move) ? move : null;
+    }
+
+    /** Return the index of the first entry whose key is at least
+     *  KEY. */
+    private int start(long key) {
+        int lo = 0, hi = _keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (_keys[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /** Return the index of the first entry whose key is greater than
+     *  KEY. */
+    private int end(long key) {
+        return key == Long.MAX_VALUE ? _keys.length : start(key + 1);
+    }
+
+    /** Write this book to OUT in the book file format. */
+    void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(_keys.length);
+        for (int i = 0; i < _keys.length; i += 1) {
+            data.writeLong(_keys[i]);
+            data.writeLong(_moves[i]);
+            data.writeShort(_weights[i]);
+        }
+        data.flush();
+    }
+
+    /** Return the book read from IN, in the book file format.  Throws
+     *  IllegalArgumentException if it is badly formed. */
+    static OpeningBook read(InputStream in) {
+        DataInputStream data = new DataInputStream(in);
+        try {
+            if (data.readInt() != MAGIC) {
+                throw new IllegalArgumentException("not an opening book");
+            }
+            int n = data.readInt();
+            if (n < 0) {
+                throw new IllegalArgumentException("badly formed book");
+            }
+            long[] keys = new long[n], moves = new long[n];
+            int[] weights = new int[n];
+            for (int i = 0; i < n; i += 1) {
+                keys[i] = data.readLong();
+                moves[i] = data.readLong();
+                weights[i] = data.readUnsignedShort();
+                if (i > 0 && keys[i] < keys[i - 1] || weights[i] == 0) {
+                    throw new IllegalArgumentException("badly formed book");
+                }
+            }
+            return new OpeningBook(keys, moves, weights);
+        } catch (IOException excp) {
+            throw new IllegalArgumentException("badly formed book");
+        }
+    }
+
+    /** Return the book in FILE.  Throws IllegalArgumentException if
+     *  FILE cannot be read or is badly formed. */
+    static OpeningBook load(File file) {
+        try (InputStream in =
+             new BufferedInputStream(new FileInputStream(file))) {
+            return read(in);
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(
+                String.format("cannot read %s", file));
+        }
+    }
+
+    /** Return the book in the resource qirkat/book.bin, or EMPTY if there
+     *  is none or it is badly formed. */
+    private static OpeningBook loadDefault() {
+        InputStream in = OpeningBook.class.getClassLoader()
+            .getResourceAsStream("qirkat/book.bin");
+        if (in == null) {
+            return EMPTY;
+        }
+        try (InputStream buffered = new BufferedInputStream(in)) {
+            return read(buffered);
+        } catch (IOException | IllegalArgumentException excp) {
+            return EMPTY;
+        }
+    }
+
+    /** Return a book covering the positions reached in the first BROAD
+     *  moves from the initial position, and those reached from them by
+     *  playing only book moves, up to PLIES moves from the start.  The
+     *  moves are found by searches DEPTH moves ahead: in each position,
+     *  the value of each legal move is found by searching the position it
+     *  leads to, and the book has every move whose value is within MARGIN
+     *  of the best, weighted by MARGIN + 1 less the shortfall.  Positions
+     *  with only one legal move are left out, since AIs need not search
+     *  them anyway. */
+    static OpeningBook build(int broad, int plies, int depth, int margin) {
+        Game game = new Game(new Board(),
+                             new ReaderSource(new StringReader(""), false),
+                             new TextReporter());
+        if (depth > 1) {
+            game.doDepth(new String[] { Integer.toString(depth - 1) });
+        }
+        ArrayList<long[]> entries = new ArrayList<>();
+        HashSet<Long> visited = new HashSet<>();
+        ArrayDeque<Board> queue = new ArrayDeque<>();
+        ArrayDeque<Integer> queuePlies = new ArrayDeque<>();
+        queue.add(new Board());
+        queuePlies.add(0);
+        visited.add(queue.peek().key());
+        while (!queue.isEmpty()) {
+            Board board = queue.poll();
+            int ply = queuePlies.poll();
+            ArrayList<Move> moves = board.getMoves();
+            ArrayList<Move> kept = new ArrayList<>(moves);
+            if (moves.size() > 1) {
+                kept.clear();
+                long[] values = new long[moves.size()];
+                long best = -Long.MAX_VALUE;
+                for (int i = 0; i < moves.size(); i += 1) {
+                    board.makeQuickMove(moves.get(i));
+                    values[i] = -value(game, board, depth - 1);
+                    board.undo();
+                    best = Math.max(best, values[i]);
+                }
+                for (int i = 0; i < moves.size(); i += 1) {
+                    if (best - values[i] <= margin) {
+                        kept.add(moves.get(i));
+                        entries.add(new long[] {
+                            board.key(), MoveCode.encode(moves.get(i)),
+                            margin + 1 - (best - values[i])
+                        });
+                    }
+                }
+            }
+            if (ply + 1 < plies) {
+                for (Move move : ply < broad ? moves : kept) {
+                    board.makeQuickMove(move);
+                    if (visited.add(board.key())) {
+                        queue.add(new Board(board));
+                        queuePlies.add(ply + 1);
+                    }
+                    board.undo();
+                }
+            }
+        }
+
+        entries.sort((x, y) -> Long.compare(x[0], y[0]));
+        int n = entries.size();
+        long[] keys = new long[n], codes = new long[n];
+        int[] weights = new int[n];
+        for (int i = 0; i < n; i += 1) {
+            keys[i] = entries.get(i)[0];
+            codes[i] = entries.get(i)[1];
+            weights[i] = (int) entries.get(i)[2];
+        }
+        return new OpeningBook(keys, codes, weights);
+    }
+
+    /** Return the value of BOARD to the player to move there, found by a
+     *  search by an AI of GAME DEPTH moves ahead (or by static evaluation,
+     *  if DEPTH is 0), after playing out any forced moves. */
+    private static long value(Game game, Board board, int depth) {
+        ArrayList<Move> moves = board.getMoves();
+        if (moves.isEmpty()) {
+            return -AI.WINNING_VALUE;
+        } else if (moves.size() == 1) {
+            board.makeQuickMove(moves.get(0));
+            long result = -value(game, board, depth);
+            board.undo();
+            return result;
+        } else if (depth == 0) {
+            int score = game.evaluator(WHITE).evaluate(board);
+            return board.whoseMove() == WHITE ? score : -score;
+        }
+        AI ai = new AI(game, board.whoseMove());
+        ai.findMove(board);
+        return ai.value();
+    }
+
+    /** Build a book and write it to a file, as directed by ARGS, which
+     *  may contain
+     *      --broad N    Cover every position reached in the first N
+     *                   moves of games (default 6).
+     *      --plies N    Cover the positions reached from those by book
+     *                   moves, up to N moves into games (default 14).
+     *      --depth N    Choose moves by searching N moves deep (default
+     *                   10).
+     *      --margin N   Keep moves whose values are within N of the best
+     *                   (default 20).
+     *      --out F      Write the book to file F (default book.bin).
+     */
+    public static void main(String... args) {
+        int broad = DEFAULT_BROAD, plies = DEFAULT_PLIES,
+            depth = DEFAULT_DEPTH, margin = DEFAULT_MARGIN;
+        String out = "book.bin";
+        try {
+            for (int i = 0; i < args.length; i += 2) {
+                String value = args[i + 1];
+                switch (args[i]) {
+                case "--broad":
+                    broad = Integer.parseInt(value);
+                    break;
+                case "--plies":
+                    plies = Integer.parseInt(value);
+                    break;
+                case "--depth":
+                    depth = Integer.parseInt(value);
+                    break;
+                case "--margin":
+                    margin = Integer.parseInt(value);
+                    break;
+                case "--out":
+                    out = value;
+                    break;
+                default:
+                    usage();
+                }
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            usage();
+        }
+        if (broad < 0 || plies < 0 || depth < 1
+            || depth > Game.MAX_SEARCH_DEPTH || margin < 0
+            || margin >= 1 << 15) {
+            usage();
+        }
+
+        long start = System.currentTimeMillis();
+        OpeningBook book = build(broad, plies, depth, margin);
+        try (OutputStream file =
+             new BufferedOutputStream(new FileOutputStream(out))) {
+            book.write(file);
+        } catch (IOException excp) {
+            System.err.printf("Could not write %s: %s%n", out,
+                              excp.getMessage());
+            System.exit(1);
+        }
+        System.out.printf("Wrote %d moves for %d positions to %s in %d "
+                          + "sec.%n", book.size(), book.positions(), out,
+                          (System.currentTimeMillis() - start) / 1000);
+    }
+
+    /** Print a usage message and exit. */
+    private static void usage() {
+        System.err.println("Usage: java qirkat.OpeningBook [--broad N] "
+                           + "[--plies N] [--depth N] [--margin N]");
+        System.err.println("           [--out F]");
+        System.exit(1);
+    }
+
+    /** Keys of the positions of the entries, in increasing order. */
+    private final long[] _keys;
+    /** MoveCodes of the entries' moves. */
+    private final long[] _moves;
+    /** Weights of the entries' moves. */
+    private final int[] _weights;
+}
@@ -0,0 +1,89 @@
+package qirkat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashSet;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Tests of opening books.
+ *  @author Adish Jain
+ */
+public class OpeningBookTest {
+
+    /** A small book, quick to build. */
+    private static final OpeningBook BOOK = OpeningBook.build(2, 4, 3, 20);
+
+    /** Return a new game, whose random numbers start from SEED. */
+    private static Game game(long seed) {
+        Game game = new Game(new Board(),
+                             new ReaderSource(new StringReader(""), false),
+                             new TextReporter());
+        game.doSeed(new String[] { Long.toString(seed) });
+        return game;
+    }
+
+    @Test
+    public void testCoverage() {
+        Board board = new Board();
+        assertTrue(BOOK.moves(board.key()) > 0);
+        for (Move move : board.getMoves()) {
+            board.makeMove(move);
+            assertTrue(board.getMoves().size() == 1
+                       || BOOK.moves(board.key()) > 0);
+            board.undo();
+        }
+        assertTrue(BOOK.positions() <= BOOK.size());
+    }
+
+    @Test
+    public void testProbe() {
+        Board board = new Board();
+        Game game = game(1);
+        HashSet<Move> chosen = new HashSet<>();
+        for (int i = 0; i < 100; i += 1) {
+            Move move = BOOK.probe(board, game);
+            assertNotNull(move);
+            assertTrue(board.legalMove(move));
+            chosen.add(move);
+        }
+        assertEquals(BOOK.moves(board.key()), chosen.size());
+        assertNull(OpeningBook.EMPTY.probe(board, game));
+        for (int i = 0; i < 6; i += 1) {
+            board.makeMove(board.getMoves().get(0));
+        }
+        assertNull(BOOK.probe(board, game));
+    }
+
+    @Test
+    public void testReadWrite() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BOOK.write(bytes);
+        OpeningBook copy =
+            OpeningBook.read(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(BOOK.size(), copy.size());
+        assertEquals(BOOK.positions(), copy.positions());
+        Board board = new Board();
+        assertEquals(BOOK.probe(board, game(2)), copy.probe(board, game(2)));
+
+        byte[] data = bytes.toByteArray();
+        data[0] += 1;
+        try {
+            OpeningBook.read(new ByteArrayInputStream(data));
+            fail("read a book with a bad magic number");
+        } catch (IllegalArgumentException excp) {
+            /* Expected. */
+        }
+        data[0] -= 1;
+        try {
+            OpeningBook.read(new ByteArrayInputStream(data, 0,
+                                                      data.length - 1));
+            fail("read a truncated book");
+        } catch (IllegalArgumentException excp) {
+            /* Expected. */
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package qirkat;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import static qirkat.PieceColor.*;
+
+/** Verification and timing of move generation: counts of the sequences
+ *  of legal moves of a given length ("perft" counts) from a position.
+ *  Since these counts depend on nothing but Board.getMoves and
+ *  Board.makeQuickMove, any change to move generation that alters them
+ *  is a bug.  A position from which the player on move has no moves
+ *  ends the game and contributes no sequences of positive length.
+ *  @author Adish Jain
+ */
+class Perft {
+
+    /** Largest depth allowed. */
+    static final int MAX_DEPTH = 32;
+
+    /** A counter of move sequences from the current position of BOARD,
+     *  which is not changed. */
+    Perft(Board board) {
+        _board = board.searchBoard();
+        _moveLists = new Board.MoveList[MAX_DEPTH + 1];
+        for (int i = 0; i < _moveLists.length; i += 1) {
+            _moveLists[i] = new Board.MoveList();
+        }
+    }
+
+    /** Return the number of sequences of DEPTH legal moves from my
+     *  position (1 if DEPTH is 0). */
+    long count(int depth) {
+        assert 0 <= depth && depth <= MAX_DEPTH;
+        return count(_board, depth);
+    }
+
+    /** Return the codes of the legal moves from my position. */
+    Board.MoveList rootMoves() {
+        Board.MoveList moves = new Board.MoveList();
+        _board.getMoves(moves);
+        return moves;
+    }
+
+    /** Return the number of sequences of DEPTH legal moves from my
+     *  position that begin with each of rootMoves(), in order.  DEPTH
+     *  must be at least 1. */
+    long[] divide(int depth) {
+        assert 1 <= depth && depth <= MAX_DEPTH;
+        Board.MoveList moves = rootMoves();
+        long[] counts = new long[moves.size()];
+        for (int i = 0; i < counts.length; i += 1) {
+            _board.makeQuickMove(moves.get(i));
+            counts[i] = count(_board, depth - 1);
+            _board.undo();
+        }
+        return counts;
+    }
+
+    /** Return the number of sequences of DEPTH legal moves from BOARD. */
+    private long count(Board board, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        Board.MoveList moves = _moveLists[depth];
+        moves.clear();
+        board.getMoves(moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+        long total = 0;
+        for (int i = 0; i < moves.size(); i += 1) {
+            board.makeQuickMove(moves.get(i));
+            total += count(board, depth - 1);
+            board.undo();
+        }
+        return total;
+    }
+
+    /** Print on OUT the perft count of depth DEPTH from BOARD, the time
+     *  taken to find it, and the resulting rate.  If DIVIDE, first print
+     *  the count for each legal move (in which case DEPTH must be at
+     *  least 1). */
+    static void report(Board board, int depth, boolean divide,
+                       PrintStream out) {
+        Perft perft = new Perft(board);
+        long start = System.nanoTime();
+        long total;
+        if (divide) {
+            Board.MoveList moves = perft.rootMoves();
+            long[] counts = perft.divide(depth);
+            total = 0;
+            for (int i = 0; i < counts.length; i += 1) {
+                out.printf("%s: %d%n", MoveCode.toMove(moves.get(i)),
+                           counts[i]);
+                total += counts[i];
+            }
+        } else {
+            total = perft.count(depth);
+        }
+        double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+        out.printf("perft %d: %d nodes in %.3f s (%.0f nodes/sec)%n",
+                   depth, total, seconds, total / seconds);
+    }
+
+    /** Print the perft count of depth ARGS[0] (after "--divide", if
+     *  present, to break it down by first move), from the initial
+     *  position, or from the position given by the remaining ARGS: the
+     *  player on move ("white" or "black"), followed by a board as for
+     *  the 'set' command. */
+    public static void main(String... args) {
+        boolean divide = args.length > 0 && args[0].equals("--divide");
+        if (divide) {
+            args = Arrays.copyOfRange(args, 1, args.length);
+        }
+        int depth;
+        try {
+            depth = Integer.parseInt(args[0]);
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            depth = -1;
+        }
+        if (depth < (divide ? 1 : 0) || depth > MAX_DEPTH) {
+            usage();
+        }
+        Board board = new Board();
+        if (args.length > 1) {
+            String side = args[1].toLowerCase();
+            String position =
+                String.join("", Arrays.copyOfRange(args, 2, args.length));
+            if (!side.equals("white") && !side.equals("black")) {
+                usage();
+            }
+            try {
+                board.setPieces(position,
+                                side.equals("black") ? BLACK : WHITE);
+            } catch (IllegalArgumentException excp) {
+                usage();
+            }
+        }
+        report(board, depth, divide, System.out);
+    }
+
+    /** Print a usage message and exit. */
+    private static void usage() {
+        System.err.println("Usage: java qirkat.Perft [--divide] DEPTH "
+                           + "[white|black POSITION]");
+        System.exit(1);
+    }
+
+    /** The board searched. */
+    private final Board _board;
+    /** _moveLists[D] holds the moves of the node being counted at depth
+     *  D. */
+    private final Board.MoveList[] _moveLists;
+}
@@ -0,0 +1,66 @@
+package qirkat;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import static qirkat.PieceColor.*;
+
+/** Tests of move generation by perft counts.  Any change to
+ *  Board.getMoves or its helpers must leave these counts unchanged.
+ *  @author Adish Jain
+ */
+public class PerftTest {
+
+    /** Check that the perft counts from BOARD for depths 1, 2, ... are
+     *  EXPECTED, and that the divide breakdown at the greatest depth
+     *  sums to the total. */
+    private void checkCounts(Board board, long... expected) {
+        Perft perft = new Perft(board);
+        assertEquals(1, perft.count(0));
+        for (int d = 1; d <= expected.length; d += 1) {
+            assertEquals("perft " + d, expected[d - 1], perft.count(d));
+        }
+        long total = 0;
+        for (long count : perft.divide(expected.length)) {
+            total += count;
+        }
+        assertEquals(expected[expected.length - 1], total);
+    }
+
+    @Test
+    public void testInitial() {
+        checkCounts(new Board(),
+                    4, 5, 6, 12, 27, 97, 416, 1826, 7818, 36283);
+    }
+
+    @Test
+    public void testMultiJumps() {
+        Board b = new Board();
+        b.setPieces("w-ww- --w-w ----w b-b-b -bbbb", BLACK);
+        checkCounts(b, 12, 128, 1102, 9114, 62612);
+        b.setPieces("wwwww w-w-w ----b b-b-b bb--w", BLACK);
+        checkCounts(b, 11, 70, 487, 2157, 10826);
+    }
+
+    @Test
+    public void testHorizontalLimits() {
+        Board b = new Board();
+        b.setPieces("b-w-w b-www -w-ww b---b bbbbb", WHITE);
+        for (String mov : new String[] {
+                "d2-c3", "a4-b4", "c3-c4", "c5-c3-a3", "c1-d1" }) {
+            b.makeMove(Move.parseMove(mov));
+        }
+        assertFalse("b4 may not move back left",
+                    b.legalMove(Move.parseMove("b4-a4")));
+        checkCounts(b, 12, 71, 417, 1756, 9858);
+    }
+
+    @Test
+    public void testUnchanged() {
+        Board b = new Board();
+        Board b0 = new Board(b);
+        new Perft(b).count(6);
+        assertEquals(b0, b);
+    }
+
+}
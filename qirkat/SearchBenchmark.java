@@ -0,0 +1,128 @@
+package qirkat;
+
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+
+import static qirkat.PieceColor.*;
+
+/** A benchmark of the AI's search, measuring how much faster it finds
+ *  moves in a set of positions as the number of search threads grows,
+ *  how many positions it visits, and how much memory the search
+ *  allocates (where the JVM can tell).
+ *  @author Adish Jain
+ */
+public class SearchBenchmark {
+
+    /** Positions searched, each followed by the side to move.  Also the
+     *  corpus of the benchmarks in ../benchmarks. */
+    static final Object[][] POSITIONS = {
+        { "wwwww wwwww bb-ww bbbbb bbbbb", WHITE },
+        { "w-ww- --w-w ----w b-b-b -bbbb", BLACK },
+        { "wwwww w-w-w ----b b-b-b bb--w", BLACK },
+        { "www-w w--ww b---w b---b -bbbb", BLACK },
+        { "wwww- wwwww bb--- bbb-b bbb-b", BLACK },
+        { "bwwww b-w-w ----w --bbb bbbbb", WHITE },
+        { "b-w-w b-www -w-ww b---b bbbbb", BLACK },
+        { "ww-ww w---w --b-b bbb-b bbbb-", WHITE },
+    };
+
+    /** Default search depth. */
+    private static final int DEFAULT_DEPTH = 9;
+
+    /** Default largest number of threads. */
+    private static final int DEFAULT_MAX_THREADS = 8;
+
+    /** Number of timed runs at each number of threads, of which the
+     *  fastest is reported. */
+    private static final int RUNS = 3;
+
+    /** Search each of the benchmark positions to depth ARGS[0] (default
+     *  9) with 1, 2, 4, ... threads, up to ARGS[1] (default 8), and report
+     *  the time taken, the search rate, the speedup over one thread, and
+     *  the bytes allocated by all threads per node searched.  The time
+     *  and allocation of setting up each position's (fresh)
+     *  transposition table are not counted.  So that the one-thread
+     *  baseline does not include compilation by the JIT, one untimed
+     *  pass over the positions comes first, and each row reports the
+     *  fastest of RUNS passes. */
+    public static void main(String[] args) {
+        int depth = args.length > 0
+            ? Integer.parseInt(args[0]) : DEFAULT_DEPTH;
+        int maxThreads = args.length > 1
+            ? Integer.parseInt(args[1]) : DEFAULT_MAX_THREADS;
+
+        Board board = new Board();
+        Game game = new Game(board,
+                             new ReaderSource(new StringReader(""), false),
+                             new TextReporter());
+        game.doDepth(new String[] { Integer.toString(depth) });
+
+        System.out.printf("Depth %d, %d positions%n", depth, POSITIONS.length);
+        search(game, board, 1);
+        System.out.printf("%8s %10s %12s %12s %8s %12s%n",
+                          "threads", "ms", "nodes", "nodes/sec", "speedup",
+                          "bytes/node");
+        double base = 0;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            long[] best = null;
+            for (int run = 0; run < RUNS; run += 1) {
+                long[] result = search(game, board, threads);
+                if (best == null || result[0] < best[0]) {
+                    best = result;
+                }
+            }
+            double millis = best[0] / 1e6;
+            long nodes = best[1];
+            if (threads == 1) {
+                base = millis;
+            }
+            System.out.printf("%8d %10.0f %12d %12.0f %8.2f %12.2f%n",
+                              threads, millis, nodes, nodes / millis * 1000,
+                              base / millis, (double) best[2] / nodes);
+        }
+    }
+
+    /** Search each of the benchmark positions once, set up on BOARD,
+     *  using GAME (whose board it is) with THREADS search threads, each
+     *  with a fresh transposition table.  Return the total nanoseconds
+     *  taken, nodes searched, and bytes allocated, in that order. */
+    private static long[] search(Game game, Board board, int threads) {
+        game.doThreads(new String[] { Integer.toString(threads) });
+        long nodes = 0, allocated = 0, nanos = 0;
+        for (Object[] position : POSITIONS) {
+            game.doHash(new String[] {
+                Integer.toString(TranspositionTable.DEFAULT_MEGABYTES)
+            });
+            game.transpositionTable();
+            board.setPieces((String) position[0],
+                            (PieceColor) position[1]);
+            AI ai = new AI(game, board.whoseMove());
+            long bytes0 = allocatedBytes();
+            long start = System.nanoTime();
+            ai.findMove();
+            nanos += System.nanoTime() - start;
+            allocated += allocatedBytes() - bytes0;
+            nodes += ai.nodesSearched();
+        }
+        return new long[] { nanos, nodes, allocated };
+    }
+
+    /** Return the total number of bytes allocated so far by all live
+     *  threads, or 0 if the JVM does not keep track. */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean =
+            ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return 0;
+        }
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) bean;
+        long total = 0;
+        for (long bytes
+                 : threads.getThreadAllocatedBytes(bean.getAllThreadIds())) {
+            total += Math.max(bytes, 0);
+        }
+        return total;
+    }
+
+}
@@ -0,0 +1,227 @@
+package qirkat;
+
+import java.util.ArrayList;
+import java.util.Formatter;
+import java.util.List;
+
+/** Statistics of one AI search: positions visited, use of the
+ *  transposition table, effectiveness of move ordering, and the depth,
+ *  node counts, and times of the iterations of iterative deepening.
+ *  Each search thread counts into its own SearchStats, and the helpers'
+ *  counts are added into the main thread's when the search ends.  An AI
+ *  collects statistics only when asked to (see Game.collectingStats), and
+ *  otherwise creates none.
+ *  @author Adish Jain
+ */
+class SearchStats {
+
+    /** Count a position visited by the quiescence search. */
+    void quiescenceNode() {
+        _quiescenceNodes += 1;
+    }
+
+    /** Count a probe of the transposition table, which found an entry
+     *  iff HIT. */
+    void probe(boolean hit) {
+        _probes += 1;
+        if (hit) {
+            _hits += 1;
+        }
+    }
+
+    /** Count a search result taken from the transposition table instead
+     *  of searching. */
+    void tableCutoff() {
+        _tableCutoffs += 1;
+    }
+
+    /** Count a beta cutoff caused by the Ith move (from 0) searched at
+     *  a node. */
+    void cutoff(int i) {
+        _cutoffs += 1;
+        if (i == 0) {
+            _firstMoveCutoffs += 1;
+        }
+    }
+
+    /** Record the completion of an iteration to DEPTH, which took NANOS
+     *  nanoseconds, after NODES positions had been visited in all. */
+    void iteration(int depth, long nanos, long nodes) {
+        _depth = depth;
+        _iterationNanos.add(nanos);
+        _iterationNodes.add(nodes);
+    }
+
+    /** Add the counts of quiescence positions, probes, and cutoffs in
+     *  OTHER (from a helper thread) to mine. */
+    void add(SearchStats other) {
+        _quiescenceNodes += other._quiescenceNodes;
+        _probes += other._probes;
+        _hits += other._hits;
+        _tableCutoffs += other._tableCutoffs;
+        _cutoffs += other._cutoffs;
+        _firstMoveCutoffs += other._firstMoveCutoffs;
+    }
+
+    /** Record that the whole search visited NODES positions in all
+     *  threads, took NANOS nanoseconds, found MOVE, and had the
+     *  principal variation PV. */
+    void finish(long nodes, long nanos, Move move, List<Move> pv) {
+        _nodes = nodes;
+        _nanos = nanos;
+        _move = move;
+        _principalVariation = new ArrayList<>(pv);
+    }
+
+    /** Return the number of positions visited, including those of the
+     *  quiescence search. */
+    long nodes() {
+        return _nodes;
+    }
+
+    /** Return the number of positions visited by the quiescence
+     *  search. */
+    long quiescenceNodes() {
+        return _quiescenceNodes;
+    }
+
+    /** Return the number of transposition-table probes. */
+    long probes() {
+        return _probes;
+    }
+
+    /** Return the number of transposition-table probes that found an
+     *  entry. */
+    long hits() {
+        return _hits;
+    }
+
+    /** Return the number of results taken from the transposition
+     *  table. */
+    long tableCutoffs() {
+        return _tableCutoffs;
+    }
+
+    /** Return the fraction of beta cutoffs caused by the first move
+     *  searched (0 if there were none). */
+    double firstMoveCutoffRate() {
+        return _cutoffs == 0 ? 0.0 : (double) _firstMoveCutoffs / _cutoffs;
+    }
+
+    /** Return the effective branching factor: the ratio of the positions
+     *  visited by the main thread's last completed iteration to those of
+     *  the one before (0 if there were fewer than two). */
+    double effectiveBranchingFactor() {
+        int n = _iterationNodes.size();
+        if (n < 2) {
+            return 0.0;
+        }
+        long last = _iterationNodes.get(n - 1) - _iterationNodes.get(n - 2);
+        long previous = _iterationNodes.get(n - 2)
+            - (n > 2 ? _iterationNodes.get(n - 3) : 0);
+        return previous == 0 ? 0.0 : (double) last / previous;
+    }
+
+    /** Return the depth of the last completed iteration. */
+    int depth() {
+        return _depth;
+    }
+
+    /** Return the time taken by the search in milliseconds. */
+    double millis() {
+        return _nanos / 1e6;
+    }
+
+    /** Return the positions visited per second. */
+    long nodesPerSecond() {
+        return _nanos == 0 ? 0 : (long) (_nodes * 1e9 / _nanos);
+    }
+
+    /** Return the times taken by the main thread's completed iterations,
+     *  in milliseconds. */
+    double[] iterationMillis() {
+        double[] result = new double[_iterationNanos.size()];
+        for (int i = 0; i < result.length; i += 1) {
+            result[i] = _iterationNanos.get(i) / 1e6;
+        }
+        return result;
+    }
+
+    /** Return my statistics as a single line of space-separated
+     *  NAME=VALUE fields, beginning with "stats", for reading by
+     *  programs.  Lists (of iteration times and of the moves of the
+     *  principal variation) are separated by commas. */
+    String toLine() {
+        Formatter out = new Formatter();
+        out.format("stats move=%s depth=%d nodes=%d qnodes=%d tt_probes=%d"
+                   + " tt_hits=%d tt_cutoffs=%d first_cutoff_rate=%.3f"
+                   + " ebf=%.2f nps=%d time_ms=%.1f iteration_ms=",
+                   _move, _depth, _nodes, _quiescenceNodes, _probes, _hits,
+                   _tableCutoffs, firstMoveCutoffRate(),
+                   effectiveBranchingFactor(), nodesPerSecond(), millis());
+        String sep = "";
+        for (double millis : iterationMillis()) {
+            out.format("%s%.1f", sep, millis);
+            sep = ",";
+        }
+        out.format(" pv=");
+        sep = "";
+        for (Move mov : _principalVariation) {
+            out.format("%s%s", sep, mov);
+            sep = ",";
+        }
+        return out.toString();
+    }
+
+    /** Return my statistics in readable form, on several lines. */
+    @Override
+    public String toString() {
+        Formatter out = new Formatter();
+        out.format("Move: %s (depth %d, %.1f ms)%n", _move, _depth,
+                   millis());
+        out.format("Nodes: %d (%d quiescence), %d/sec%n", _nodes,
+                   _quiescenceNodes, nodesPerSecond());
+        out.format("Table: %d probes, %d hits, %d cutoffs%n", _probes,
+                   _hits, _tableCutoffs);
+        out.format("Cutoffs on first move: %.1f%%%n",
+                   100 * firstMoveCutoffRate());
+        out.format("Effective branching factor: %.2f%n",
+                   effectiveBranchingFactor());
+        out.format("Iterations (ms):");
+        for (double millis : iterationMillis()) {
+            out.format(" %.1f", millis);
+        }
+        out.format("%nPrincipal variation:");
+        for (Move mov : _principalVariation) {
+            out.format(" %s", mov);
+        }
+        return out.toString();
+    }
+
+    /** Positions visited, including by the quiescence search. */
+    private long _nodes;
+    /** Positions visited by the quiescence search. */
+    private long _quiescenceNodes;
+    /** Transposition-table probes. */
+    private long _probes;
+    /** Transposition-table probes that found entries. */
+    private long _hits;
+    /** Results taken from the transposition table. */
+    private long _tableCutoffs;
+    /** Beta cutoffs. */
+    private long _cutoffs;
+    /** Beta cutoffs caused by the first move searched. */
+    private long _firstMoveCutoffs;
+    /** Depth of the last completed iteration. */
+    private int _depth;
+    /** Times of the completed iterations, in nanoseconds. */
+    private final ArrayList<Long> _iterationNanos = new ArrayList<>();
+    /** Values of _nodes at the end of each completed iteration. */
+    private final ArrayList<Long> _iterationNodes = new ArrayList<>();
+    /** Time taken by the whole search, in nanoseconds. */
+    private long _nanos;
+    /** The move found. */
+    private Move _move;
+    /** The principal variation found. */
+    private List<Move> _principalVariation = new ArrayList<>();
+}
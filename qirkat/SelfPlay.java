@@ -0,0 +1,418 @@
+package qirkat;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Formatter;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static qirkat.PieceColor.*;
+import static qirkat.Command.Type.*;
+
+/** A headless self-play tournament between two AI players, A and B,
+ *  each configured by its own list of setting commands ('depth',
+ *  'time', 'threads', 'hash', 'weights', and 'book').  Games are
+ *  played in pairs: both games of a pair start from the same opening of
+ *  random moves, with A playing White in one and Black in the other.
+ *  After that, each player takes moves from its opening book while the
+ *  position is in it, and searches otherwise.  Each game has its own
+ *  Board, and each player in it its own Game (holding its settings,
+ *  transposition table, and random numbers) and Reporter, so that games
+ *  share nothing and may be played in parallel.
+ *  @author Adish Jain
+ */
+class SelfPlay {
+
+    /** Commands allowed as player settings. */
+    static final EnumSet<Command.Type> SETTINGS =
+        EnumSet.of(DEPTH, TIME, THREADS, HASH, WEIGHTS, BOOK);
+
+    /** Default number of random moves in each opening. */
+    static final int DEFAULT_OPENING_MOVES = 4;
+
+    /** Default number of moves after which a game is drawn. */
+    static final int DEFAULT_MAX_MOVES = 200;
+
+    /** A tournament between players with the setting commands SETTINGSA
+     *  and SETTINGSB, whose games start with OPENINGMOVES random moves
+     *  chosen (like book moves) with random seeds derived from SEED, and
+     *  are drawn after MAXMOVES moves in all.  Throws GameException if
+     *  a setting is not valid. */
+    SelfPlay(List<String> settingsA, List<String> settingsB,
+             int openingMoves, int maxMoves, long seed) {
+        _settings = new ArrayList<>();
+        _settings.add(new ArrayList<>(settingsA));
+        _settings.add(new ArrayList<>(settingsB));
+        _openingMoves = openingMoves;
+        _maxMoves = maxMoves;
+        _seed = seed;
+        for (List<String> settings : _settings) {
+            newGame(new Board(), settings).close();
+        }
+    }
+
+    /** Play game number N of the tournament and return its result.  A
+     *  plays White in even-numbered games and Black in odd-numbered
+     *  ones, and games 2K and 2K+1 share an opening. */
+    Result play(int n) {
+        Board board = new Board();
+        int white = n % 2;
+        Game[] games = {
+            newGame(board, _settings.get(white)),
+            newGame(board, _settings.get(1 - white)),
+        };
+        try {
+            Game whiteGame = games[0];
+            for (Game game : games) {
+                game.doSeed(new String[] { Long.toString(_seed + n / 2) });
+            }
+            int length;
+            for (length = 0; length < _openingMoves && !over(board);
+                 length += 1) {
+                ArrayList<Move> moves = board.getMoves();
+                board.makeMove(moves.get(whiteGame.nextRandom(moves.size())));
+            }
+            AI[] ais = {
+                new AI(games[0], WHITE), new AI(games[1], BLACK)
+            };
+            Result result = new Result(white);
+            for (; length < _maxMoves && !over(board); length += 1) {
+                int side = board.whoseMove() == WHITE ? 0 : 1;
+                int player = (side + white) % 2;
+                Move move = games[side].openingBook().probe(board,
+                                                            games[side]);
+                if (move != null) {
+                    result.recordBookMove(player);
+                } else {
+                    long start = System.nanoTime();
+                    move = ais[side].findMove();
+                    result.recordMove(player, System.nanoTime() - start,
+                                      ais[side].nodesSearched());
+                }
+                board.makeMove(move);
+            }
+            int winner;
+            if (!over(board)) {
+                winner = -1;
+            } else if (board.whoseMove() == WHITE) {
+                winner = (1 + white) % 2;
+            } else {
+                winner = white;
+            }
+            result.finish(winner, length);
+            return result;
+        } finally {
+            for (Game game : games) {
+                game.close();
+            }
+        }
+    }
+
+    /** Return true iff the game on BOARD is over: the player to move
+     *  cannot move. */
+    private static boolean over(Board board) {
+        return board.gameOver() || board.getMoves().isEmpty();
+    }
+
+    /** Return a game playing on BOARD, with SETTINGS applied, and with
+     *  a Reporter that discards messages. */
+    private static Game newGame(Board board, List<String> settings) {
+        Game game = new Game(board,
+                             new ReaderSource(new StringReader(""), false),
+                             new SilentReporter());
+        for (String setting : settings) {
+            if (!SETTINGS.contains(
+                    Command.parseCommand(setting).commandType())) {
+                throw GameException.error("not a player setting: %s",
+                                          setting);
+            }
+            game.execute(setting);
+        }
+        return game;
+    }
+
+    /** Play GAMES games of my tournament on THREADS threads, and return
+     *  the results in order. */
+    List<Result> play(int games, int threads) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            ArrayList<Future<Result>> futures = new ArrayList<>();
+            for (int n = 0; n < games; n += 1) {
+                final int game = n;
+                futures.add(pool.submit(() -> play(game)));
+            }
+            ArrayList<Result> results = new ArrayList<>();
+            for (Future<Result> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException | ExecutionException excp) {
+            throw new IllegalStateException("self-play game failed", excp);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /** Return a table summarizing RESULTS, which were played on THREADS
+     *  threads.  For each player, the 'book' column counts the moves it
+     *  took from its opening book; 'ms/move' and 'nodes/sec' cover only
+     *  the moves it searched for. */
+    String summary(List<Result> results, int threads) {
+        long[] wins = new long[2], asWhite = new long[2], moves = new long[2],
+            bookMoves = new long[2], nanos = new long[2], nodes = new long[2];
+        long totalLength = 0, draws = 0;
+        int shortest = Integer.MAX_VALUE, longest = 0;
+        for (Result result : results) {
+            if (result.winner() < 0) {
+                draws += 1;
+            } else {
+                wins[result.winner()] += 1;
+                if (result.winner() == result.white()) {
+                    asWhite[result.winner()] += 1;
+                }
+            }
+            for (int p = 0; p < 2; p += 1) {
+                moves[p] += result.moves(p);
+                bookMoves[p] += result.bookMoves(p);
+                nanos[p] += result.nanos(p);
+                nodes[p] += result.nodes(p);
+            }
+            totalLength += result.length();
+            shortest = Math.min(shortest, result.length());
+            longest = Math.max(longest, result.length());
+        }
+
+        Formatter out = new Formatter();
+        int games = results.size();
+        out.format("%d games (openings of %d random moves, seed %d), "
+                   + "%d at a time%n", games, _openingMoves, _seed, threads);
+        out.format("Length: %.1f moves on average (%d to %d), "
+                   + "drawn after %d%n",
+                   games == 0 ? 0.0 : (double) totalLength / games,
+                   games == 0 ? 0 : shortest, longest, _maxMoves);
+        out.format("%-7s %5s %6s %5s %6s %9s %6s %9s %12s  %s%n", "player",
+                   "wins", "losses", "draws", "score", "as white", "book",
+                   "ms/move", "nodes/sec", "settings");
+        for (int p = 0; p < 2; p += 1) {
+            long losses = games - draws - wins[p];
+            double seconds = nanos[p] / 1e9;
+            out.format("%-7s %5d %6d %5d %5.1f%% %9d %6d %9.1f %12.0f  %s%n",
+                       p == 0 ? "A" : "B", wins[p], losses, draws,
+                       games == 0 ? 0.0
+                       : 100.0 * (wins[p] + draws / 2.0) / games,
+                       asWhite[p], bookMoves[p],
+                       moves[p] == 0 ? 0.0 : seconds * 1000 / moves[p],
+                       seconds == 0 ? 0.0 : nodes[p] / seconds,
+                       String.join("; ", _settings.get(p)));
+        }
+        return out.toString();
+    }
+
+    /** Run a tournament as directed by ARGS, and print a summary of its
+     *  results.  ARGS may contain
+     *      --games N      Play N games (default 100).
+     *      --parallel N   Play N games at a time (default, the number of
+     *                     processors).
+     *      --seed N       Derive the openings from seed N (default 0).
+     *      --opening N    Start each game with N random moves (default
+     *                     4).
+     *      --max-moves N  Declare a draw after N moves (default 200).
+     *      --a SETTINGS, --b SETTINGS
+     *                     Configure player A or B with SETTINGS, setting
+     *                     commands separated by ';', as in
+     *                     --a "depth 6; weights w.txt".
+     */
+    public static void main(String... args) {
+        int games = DEFAULT_GAMES,
+            threads = Runtime.getRuntime().availableProcessors(),
+            openingMoves = DEFAULT_OPENING_MOVES,
+            maxMoves = DEFAULT_MAX_MOVES;
+        long seed = 0;
+        List<String> settingsA = new ArrayList<>(),
+            settingsB = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i += 2) {
+                String value = args[i + 1];
+                switch (args[i]) {
+                case "--games":
+                    games = Integer.parseInt(value);
+                    break;
+                case "--parallel":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--opening":
+                    openingMoves = Integer.parseInt(value);
+                    break;
+                case "--max-moves":
+                    maxMoves = Integer.parseInt(value);
+                    break;
+                case "--a":
+                    settingsA = settings(value);
+                    break;
+                case "--b":
+                    settingsB = settings(value);
+                    break;
+                default:
+                    usage();
+                }
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            usage();
+        }
+        if (games < 0 || threads < 1 || openingMoves < 0 || maxMoves < 1) {
+            usage();
+        }
+
+        SelfPlay tournament;
+        try {
+            tournament = new SelfPlay(settingsA, settingsB, openingMoves,
+                                      maxMoves, seed);
+        } catch (GameException excp) {
+            System.err.println(excp.getMessage());
+            System.exit(1);
+            return;
+        }
+        System.out.print(tournament.summary(tournament.play(games, threads),
+                                            threads));
+    }
+
+    /** Return the setting commands in TEXT, separated by ';'. */
+    private static List<String> settings(String text) {
+        ArrayList<String> result = new ArrayList<>();
+        for (String setting : text.split(";")) {
+            if (!setting.trim().isEmpty()) {
+                result.add(setting.trim());
+            }
+        }
+        return result;
+    }
+
+    /** Print a usage message and exit. */
+    private static void usage() {
+        System.err.println("Usage: java qirkat.SelfPlay [--games N] "
+                           + "[--parallel N] [--seed N] [--opening N]");
+        System.err.println("           [--max-moves N] [--a SETTINGS] "
+                           + "[--b SETTINGS]");
+        System.exit(1);
+    }
+
+    /** The outcome of one game of a tournament.  Players are numbered 0
+     *  (A) and 1 (B). */
+    static class Result {
+
+        /** The result of a game in which player WHITE plays White. */
+        Result(int white) {
+            _white = white;
+        }
+
+        /** Record a move by PLAYER that took NANOS nanoseconds to find
+         *  by searching, visiting NODES positions. */
+        void recordMove(int player, long nanos, long nodes) {
+            _moves[player] += 1;
+            _nanos[player] += nanos;
+            _nodes[player] += nodes;
+        }
+
+        /** Record a move by PLAYER taken from its opening book. */
+        void recordBookMove(int player) {
+            _bookMoves[player] += 1;
+        }
+
+        /** Record that the game ended after LENGTH moves, won by player
+         *  WINNER (-1 for a draw). */
+        void finish(int winner, int length) {
+            _winner = winner;
+            _length = length;
+        }
+
+        /** Return the player who played White. */
+        int white() {
+            return _white;
+        }
+
+        /** Return the winning player, or -1 for a draw. */
+        int winner() {
+            return _winner;
+        }
+
+        /** Return the number of moves in the game, including the
+         *  opening. */
+        int length() {
+            return _length;
+        }
+
+        /** Return the number of moves PLAYER chose by searching. */
+        int moves(int player) {
+            return _moves[player];
+        }
+
+        /** Return the number of moves PLAYER took from its opening
+         *  book. */
+        int bookMoves(int player) {
+            return _bookMoves[player];
+        }
+
+        /** Return the time PLAYER took to choose its moves by searching,
+         *  in nanoseconds. */
+        long nanos(int player) {
+            return _nanos[player];
+        }
+
+        /** Return the number of positions PLAYER visited in its
+         *  searches. */
+        long nodes(int player) {
+            return _nodes[player];
+        }
+
+        /** The player playing White. */
+        private final int _white;
+        /** The winner, or -1 for a draw. */
+        private int _winner;
+        /** The number of moves in the game. */
+        private int _length;
+        /** Moves chosen by searching by each player. */
+        private final int[] _moves = new int[2];
+        /** Moves taken from the opening book by each player. */
+        private final int[] _bookMoves = new int[2];
+        /** Time spent searching by each player. */
+        private final long[] _nanos = new long[2];
+        /** Positions visited by each player. */
+        private final long[] _nodes = new long[2];
+    }
+
+    /** A Reporter that discards all messages. */
+    private static class SilentReporter implements Reporter {
+
+        @Override
+        public void errMsg(String format, Object... args) {
+        }
+
+        @Override
+        public void outcomeMsg(String format, Object... args) {
+        }
+
+        @Override
+        public void moveMsg(String format, Object... args) {
+        }
+
+    }
+
+    /** Default number of games. */
+    private static final int DEFAULT_GAMES = 100;
+
+    /** Settings of players A and B. */
+    private final List<List<String>> _settings;
+    /** Number of random moves in each opening. */
+    private final int _openingMoves;
+    /** Number of moves after which a game is drawn. */
+    private final int _maxMoves;
+    /** Seed from which openings are derived. */
+    private final long _seed;
+}
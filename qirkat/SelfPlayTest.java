@@ -0,0 +1,59 @@
+package qirkat;
+
+import java.util.List;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Tests of self-play tournaments.
+ *  @author Adish Jain
+ */
+public class SelfPlayTest {
+
+    @Test
+    public void testParallelGames() {
+        SelfPlay tournament =
+            new SelfPlay(List.of("depth 3"), List.of("depth 2", "hash 1"),
+                         SelfPlay.DEFAULT_OPENING_MOVES, 60, 1);
+        List<SelfPlay.Result> serial = tournament.play(6, 1),
+            parallel = tournament.play(6, 3);
+        assertEquals(6, parallel.size());
+        for (int n = 0; n < serial.size(); n += 1) {
+            SelfPlay.Result result = parallel.get(n);
+            assertEquals(n % 2, result.white());
+            assertEquals(serial.get(n).winner(), result.winner());
+            assertEquals(serial.get(n).length(), result.length());
+            assertEquals(result.length() - SelfPlay.DEFAULT_OPENING_MOVES,
+                         result.moves(0) + result.moves(1)
+                         + result.bookMoves(0) + result.bookMoves(1));
+            assertTrue(result.length() <= 60);
+        }
+        String summary = tournament.summary(parallel, 3);
+        assertTrue(summary, summary.startsWith("6 games"));
+        assertTrue(summary, summary.contains("depth 2; hash 1"));
+    }
+
+    @Test
+    public void testBookMoves() {
+        SelfPlay tournament =
+            new SelfPlay(List.of("depth 2", "book off"),
+                         List.of("depth 2", "book off"), 0, 10, 1);
+        for (SelfPlay.Result result : tournament.play(2, 1)) {
+            assertEquals(0, result.bookMoves(0) + result.bookMoves(1));
+            assertEquals(result.length(),
+                         result.moves(0) + result.moves(1));
+        }
+    }
+
+    @Test
+    public void testBadSetting() {
+        try {
+            new SelfPlay(List.of("quit"), List.of(),
+                         SelfPlay.DEFAULT_OPENING_MOVES,
+                         SelfPlay.DEFAULT_MAX_MOVES, 0);
+            fail("bad setting accepted");
+        } catch (GameException excp) {
+            /* Expected. */
+        }
+    }
+}
@@ -0,0 +1,503 @@
+package qirkat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.channels.SelectionKey.*;
+import static qirkat.Game.State.*;
+
+/** A server of Qirkat sessions over TCP on the loopback interface.  Each
+ *  connection is an independent Game, with its own board, settings, and
+ *  AIs, reading commands (one per line, as from the terminal, but with no
+ *  prompts) from the connection and writing its output back to it.  The
+ *  session ends, and the server closes the connection, on 'quit' or when
+ *  the client closes its side.  Since clients need not be trusted,
+ *  sessions may not use commands that read the server's files (see
+ *  Game.forbidFiles), and have a limit on the sizes of their
+ *  transposition tables.
+ *
+ *  No thread belongs to a session, so that a session waiting for its
+ *  client costs only its memory.  One thread, running serve, does all the
+ *  reading and writing of the connections, using a Selector, and queues
+ *  the lines read for their sessions.  A session with lines to perform is
+ *  driven (as described in Game.process) by one of a few worker threads,
+ *  which hands each AI move to one of a fixed number of search threads,
+ *  one per processor.  Thus a slow client holds no thread at all, and
+ *  when the processors are busy, AIs wait their turns for a search
+ *  thread rather than slowing everyone's searches.  Sessions whose AIs
+ *  search with several threads (see 'threads') also take permits for
+ *  them from a semaphore with one per processor (see
+ *  Game.shareSearchThreads).
+ *
+ *  Both queues of a session are bounded: the server stops reading from a
+ *  client whose session has fallen behind, and stops performing the
+ *  commands of a client that is not reading its output.
+ *  @author Adish Jain
+ */
+class Server {
+
+    /** Number of unread lines from a client at which the server stops
+     *  reading from it. */
+    static final int MAX_PENDING_LINES = 64;
+
+    /** Number of unwritten bytes of output to a client at which its
+     *  session stops performing commands. */
+    static final int MAX_PENDING_OUTPUT = 1 << 16;
+
+    /** Length at which a line from a client is cut off: the rest of the
+     *  line, up to its end, is discarded. */
+    static final int MAX_LINE_LENGTH = 1 << 12;
+
+    /** Number of connections the system may hold waiting for me to
+     *  accept them. */
+    static final int BACKLOG = 1 << 10;
+
+    /** Initial size of the transposition table of a session, in
+     *  megabytes: smaller than Game's default, since many sessions may
+     *  be playing at once.  Clients may change it with 'hash', up to
+     *  MAX_SESSION_HASH_MEGABYTES.  A table is only allocated once an
+     *  AI searches. */
+    static final int SESSION_HASH_MEGABYTES = 4;
+
+    /** Largest size to which a client may set the transposition table
+     *  of its session, in megabytes. */
+    static final int MAX_SESSION_HASH_MEGABYTES = 16;
+
+    /** Time after which idle worker and search threads end, in
+     *  seconds. */
+    static final int IDLE_THREAD_SECONDS = 10;
+
+    /** A server listening on PORT (0 for any free port) of the loopback
+     *  interface.  It does nothing until serve is called. */
+    Server(int port) throws IOException {
+        _selector = Selector.open();
+        _listener = ServerSocketChannel.open();
+        _listener.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                                             port), BACKLOG);
+        _listener.configureBlocking(false);
+        _listener.register(_selector, OP_ACCEPT);
+        _searchThreads = Runtime.getRuntime().availableProcessors();
+        _searchSlots = new Semaphore(_searchThreads, true);
+        _workers = pool(_searchThreads, "qirkat-session");
+        _searchers = pool(_searchThreads, "qirkat-ai");
+    }
+
+    /** Return the port on which I listen. */
+    int port() {
+        return _listener.socket().getLocalPort();
+    }
+
+    /** Return the number of sessions not yet over. */
+    int sessions() {
+        return _sessions.get();
+    }
+
+    /** Accept connections and serve their sessions until close is
+     *  called.  Then disconnect all clients, ending their sessions. */
+    void serve() throws IOException {
+        try {
+            while (!_closed) {
+                _selector.select();
+                for (Runnable task = _tasks.poll(); task != null;
+                     task = _tasks.poll()) {
+                    task.run();
+                }
+                Iterator<SelectionKey> keys =
+                    _selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Session session = (Session) key.attachment();
+                    if (key.isReadable()) {
+                        session.read();
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        session.write();
+                    }
+                }
+            }
+        } finally {
+            for (SelectionKey key : _selector.keys()) {
+                if (key.attachment() instanceof Session) {
+                    ((Session) key.attachment()).disconnect();
+                }
+            }
+            _listener.close();
+            _selector.close();
+        }
+    }
+
+    /** Stop serving (see serve).  May be called from any thread. */
+    void close() {
+        _closed = true;
+        _selector.wakeup();
+    }
+
+    /** Accept the waiting connections, starting their sessions. */
+    private void accept() throws IOException {
+        for (SocketChannel channel = _listener.accept(); channel != null;
+             channel = _listener.accept()) {
+            channel.configureBlocking(false);
+            Session session = new Session(channel);
+            session._key = channel.register(_selector, OP_READ, session);
+            _sessions.incrementAndGet();
+        }
+    }
+
+    /** Have the serving thread run TASK, which may change the interests
+     *  of selection keys, at its next opportunity. */
+    private void schedule(Runnable task) {
+        _tasks.add(task);
+        _selector.wakeup();
+    }
+
+    /** Return a pool of at most THREADS daemon threads named NAME, which
+     *  end when idle. */
+    private static ExecutorService pool(int threads, String name) {
+        ThreadPoolExecutor result =
+            new ThreadPoolExecutor(threads, threads, IDLE_THREAD_SECONDS,
+                                   TimeUnit.SECONDS,
+                                   new LinkedBlockingQueue<>(), r -> {
+                                       Thread t = new Thread(r, name);
+                                       t.setDaemon(true);
+                                       return t;
+                                   });
+        result.allowCoreThreadTimeOut(true);
+        return result;
+    }
+
+    /** The state of one connection and its game. */
+    private class Session {
+
+        /** A session for the client connected by CHANNEL. */
+        Session(SocketChannel channel) {
+            _channel = channel;
+            _game = new Game(new Board(), NO_INPUT, _reporter, _out);
+            _game.execute("hash " + SESSION_HASH_MEGABYTES);
+            _game.limitHash(MAX_SESSION_HASH_MEGABYTES);
+            _game.forbidFiles();
+            _game.shareSearchThreads(_searchSlots, _searchThreads);
+            _game.begin();
+        }
+
+        /** Read what is available from the client, queueing its complete
+         *  lines (cut off at MAX_LINE_LENGTH) for the game. */
+        void read() {
+            int n;
+            _readBuffer.clear();
+            try {
+                n = _channel.read(_readBuffer);
+            } catch (IOException excp) {
+                n = -1;
+            }
+            if (n < 0) {
+                endInput();
+                return;
+            }
+            _readBuffer.flip();
+            synchronized (this) {
+                while (_readBuffer.hasRemaining()) {
+                    byte c = _readBuffer.get();
+                    if (c == '\n') {
+                        String line =
+                            _partial.toString(StandardCharsets.UTF_8);
+                        _lines.add(line.replace("\r", ""));
+                        _partial.reset();
+                    } else if (_partial.size() < MAX_LINE_LENGTH) {
+                        _partial.write(c);
+                    }
+                }
+                if (_lines.size() >= MAX_PENDING_LINES) {
+                    _reading = false;
+                    _key.interestOps(_key.interestOps() & ~OP_READ);
+                }
+                wake();
+            }
+        }
+
+        /** Write as much queued output to the client as it will take,
+         *  and close the connection if the game is over and all its output
+         *  has been written. */
+        synchronized void write() {
+            if (!_key.isValid()) {
+                return;
+            }
+            try {
+                while (!_output.isEmpty()) {
+                    ByteBuffer buf = _output.peek();
+                    int n = _channel.write(buf);
+                    _pendingOutput -= n;
+                    if (buf.hasRemaining()) {
+                        break;
+                    }
+                    _output.poll();
+                }
+            } catch (IOException excp) {
+                disconnect();
+                return;
+            }
+            if (!_output.isEmpty()) {
+                _key.interestOps(_key.interestOps() | OP_WRITE);
+            } else if (_finished) {
+                disconnect();
+                return;
+            } else {
+                _key.interestOps(_key.interestOps() & ~OP_WRITE);
+            }
+            if (_stalled && _pendingOutput < MAX_PENDING_OUTPUT) {
+                _stalled = false;
+                wake();
+            }
+        }
+
+        /** Record that the client has sent all its input, taking an
+         *  unterminated last line as a line. */
+        synchronized void endInput() {
+            if (_partial.size() > 0) {
+                _lines.add(_partial.toString(StandardCharsets.UTF_8));
+                _partial.reset();
+            }
+            _ended = true;
+            _key.interestOps(_key.interestOps() & ~OP_READ);
+            wake();
+        }
+
+        /** Close the connection, ending the session if it is not over and
+         *  discarding any output not yet written. */
+        synchronized void disconnect() {
+            _ended = true;
+            _output.clear();
+            _pendingOutput = 0;
+            _stalled = false;
+            _key.cancel();
+            try {
+                _channel.close();
+            } catch (IOException excp) {
+                /* Ignore IOException */
+            }
+            wake();
+        }
+
+        /** Have a worker drive the game (see pump), unless one already is,
+         *  or the game is over. */
+        private synchronized void wake() {
+            if (!_busy && !_finished) {
+                _busy = true;
+                _workers.execute(() -> pump(null));
+            }
+        }
+
+        /** Make MOVE, if it is not null, and then perform the lines
+         *  received from the client until there are no more, the client
+         *  must first read the output, or an AI is to move, in which case
+         *  have a search thread find its move.  Only one thread at a time
+         *  drives a session: the one that set _busy. */
+        private void pump(Move move) {
+            CURRENT.set(this);
+            try {
+                if (move != null) {
+                    _game.play(move);
+                }
+                while (_game.getState() != FINISHED) {
+                    AI ai = _game.mover();
+                    if (ai != null) {
+                        _searchers.execute(() -> think(ai));
+                        return;
+                    }
+                    String line;
+                    synchronized (this) {
+                        if (_pendingOutput >= MAX_PENDING_OUTPUT) {
+                            _stalled = true;
+                        }
+                        if (_stalled || _lines.isEmpty() && !_ended) {
+                            _busy = false;
+                            return;
+                        }
+                        line = _lines.poll();
+                        if (!_reading && !_ended
+                            && _lines.size() <= MAX_PENDING_LINES / 2) {
+                            _reading = true;
+                            schedule(this::resumeReading);
+                        }
+                    }
+                    _game.perform(line);
+                }
+            } catch (RuntimeException excp) {
+                end();
+                throw excp;
+            } finally {
+                _out.flush();
+                CURRENT.remove();
+            }
+            end();
+        }
+
+        /** Have AI find its move, and then have a worker make it and
+         *  continue driving the game. */
+        private void think(AI ai) {
+            Move move;
+            CURRENT.set(this);
+            try {
+                move = ai.myMove();
+            } catch (RuntimeException excp) {
+                end();
+                throw excp;
+            } finally {
+                _out.flush();
+                CURRENT.remove();
+            }
+            _workers.execute(() -> pump(move));
+        }
+
+        /** End the game, and close the connection once its output has
+         *  been written. */
+        private void end() {
+            _game.finish();
+            synchronized (this) {
+                _finished = true;
+            }
+            _sessions.decrementAndGet();
+            schedule(this::write);
+        }
+
+        /** Start reading from the client again. */
+        private void resumeReading() {
+            if (_key.isValid()) {
+                _key.interestOps(_key.interestOps() | OP_READ);
+            }
+        }
+
+        /** Queue BYTES for writing to the client. */
+        private synchronized void send(byte[] bytes) {
+            if (!_channel.isOpen()) {
+                return;
+            }
+            if (_output.isEmpty()) {
+                schedule(this::write);
+            }
+            _output.add(ByteBuffer.wrap(bytes));
+            _pendingOutput += bytes.length;
+        }
+
+        /** The connection to the client. */
+        private final SocketChannel _channel;
+        /** The key of _channel with my server's selector. */
+        private SelectionKey _key;
+        /** The game played. */
+        private final Game _game;
+        /** The incomplete last line read from the client. */
+        private final ByteArrayOutputStream _partial =
+            new ByteArrayOutputStream(0);
+        /** Output of the game not yet flushed (see Output). */
+        private final ByteArrayOutputStream _unflushed =
+            new ByteArrayOutputStream(0);
+        /** Lines from the client not yet performed. */
+        private final ArrayDeque<String> _lines = new ArrayDeque<>(0);
+        /** Output not yet written to the client. */
+        private final ArrayDeque<ByteBuffer> _output = new ArrayDeque<>(0);
+        /** Number of bytes in _output. */
+        private int _pendingOutput;
+        /** False when reading from the client has been stopped because
+         *  too many of its lines are unperformed. */
+        private boolean _reading = true;
+        /** True when performing lines has been stopped because too much
+         *  output is unwritten. */
+        private boolean _stalled;
+        /** True while a thread is driving the game or finding an AI's
+         *  move. */
+        private boolean _busy;
+        /** True once the client has sent all its input, or is gone. */
+        private boolean _ended;
+        /** True once the game is over. */
+        private boolean _finished;
+    }
+
+    /** The stream on which all sessions' games write their output.  A
+     *  PrintStream holds tens of kilobytes of buffers, and most sessions
+     *  are idle, so instead of one each, the sessions share this one,
+     *  which sends its output to the session being driven by the thread
+     *  writing it (see Session.pump): each flush (as on each println)
+     *  sends the bytes the thread has written since its last one.  The
+     *  PrintStream is synchronized, so that the output of one call of one
+     *  of its methods is never split among threads. */
+    private static class Output extends OutputStream {
+        @Override
+        public void write(int b) {
+            CURRENT.get()._unflushed.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            CURRENT.get()._unflushed.write(b, off, len);
+        }
+
+        @Override
+        public void flush() {
+            Session session = CURRENT.get();
+            if (session._unflushed.size() > 0) {
+                session.send(session._unflushed.toByteArray());
+                session._unflushed.reset();
+            }
+        }
+    }
+
+    /** The session being driven by the current thread, if any. */
+    private static final ThreadLocal<Session> CURRENT = new ThreadLocal<>();
+
+    /** The command source of sessions' games, which are given their input
+     *  by Game.perform instead of reading it. */
+    private static final CommandSource NO_INPUT = prompt -> null;
+
+    /** Output of all sessions (see Output). */
+    private final PrintStream _out =
+        new PrintStream(new Output(), true, StandardCharsets.UTF_8);
+    /** Reporter of all sessions, which prints on _out. */
+    private final TextReporter _reporter = new TextReporter(_out);
+    /** Selects the connections ready for reading and writing. */
+    private final Selector _selector;
+    /** Accepts connections. */
+    private final ServerSocketChannel _listener;
+    /** Buffer into which the serving thread reads from clients. */
+    private final ByteBuffer _readBuffer = ByteBuffer.allocate(1 << 12);
+    /** Changes of selection keys to be made by the serving thread. */
+    private final ConcurrentLinkedQueue<Runnable> _tasks =
+        new ConcurrentLinkedQueue<>();
+    /** Threads that drive sessions. */
+    private final ExecutorService _workers;
+    /** Threads on which AIs search. */
+    private final ExecutorService _searchers;
+    /** Permits for the search threads of all sessions. */
+    private final Semaphore _searchSlots;
+    /** Number of permits of _searchSlots in all. */
+    private final int _searchThreads;
+    /** Number of sessions not yet over. */
+    private final AtomicInteger _sessions = new AtomicInteger();
+    /** True once close has been called. */
+    private volatile boolean _closed;
+}
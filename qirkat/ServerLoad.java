@@ -0,0 +1,148 @@
+package qirkat;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/** A load test of Server: many clients connect and then sit idle, while
+ *  the server's heap and threads are measured and one more client plays.
+ *  The idle clients are held by a second JVM, so that each process needs
+ *  only one file descriptor per connection.  Run with a small heap (as
+ *  'make load' does) to check that idle sessions are cheap.
+ *  @author Adish Jain
+ */
+public class ServerLoad {
+
+    /** Default number of idle sessions. */
+    private static final int DEFAULT_SESSIONS = 10000;
+
+    /** Time allowed for the idle sessions to connect, in milliseconds. */
+    private static final long CONNECT_MILLIS = 120000;
+
+    /** Serve ARGS[0] (default 10000) idle sessions, and report the
+     *  server's heap use and threads with and without them, and the
+     *  time a further session takes to play a short game.  With
+     *  ARGS[0] "--clients", instead connect ARGS[2] idle clients to port
+     *  ARGS[1], print "connected", and hold the connections until the
+     *  end of the standard input. */
+    public static void main(String[] args)
+        throws IOException, InterruptedException {
+        if (args.length > 0 && args[0].equals("--clients")) {
+            holdClients(Integer.parseInt(args[1]),
+                        Integer.parseInt(args[2]));
+            return;
+        }
+        int sessions = args.length > 0
+            ? Integer.parseInt(args[0]) : DEFAULT_SESSIONS;
+
+        Server server = new Server(0);
+        Thread serving = new Thread(() -> {
+            try {
+                server.serve();
+            } catch (IOException excp) {
+                throw new IllegalStateException(excp);
+            }
+        }, "qirkat-serve");
+        serving.setDaemon(true);
+        serving.start();
+
+        long heap0 = usedHeap();
+        int threads0 = Thread.activeCount();
+        Process clients = new ProcessBuilder(
+            System.getProperty("java.home") + "/bin/java", "-cp",
+            System.getProperty("java.class.path"), "qirkat.ServerLoad",
+            "--clients", Integer.toString(server.port()),
+            Integer.toString(sessions))
+            .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        long start = System.currentTimeMillis();
+        BufferedReader status =
+            new BufferedReader(new InputStreamReader(clients.getInputStream(),
+                                                     StandardCharsets.UTF_8));
+        if (!"connected".equals(status.readLine())) {
+            System.err.println("Clients failed to connect.");
+            System.exit(1);
+        }
+        while (server.sessions() < sessions) {
+            if (System.currentTimeMillis() - start > CONNECT_MILLIS) {
+                System.err.printf("Only %d of %d sessions started.%n",
+                                  server.sessions(), sessions);
+                System.exit(1);
+            }
+            Thread.sleep(10);
+        }
+        long connectMillis = System.currentTimeMillis() - start;
+        long heap1 = usedHeap();
+        int threads1 = Thread.activeCount();
+
+        start = System.nanoTime();
+        String output = play(server.port());
+        double playMillis = (System.nanoTime() - start) / 1e6;
+
+        clients.getOutputStream().close();
+        clients.waitFor();
+        server.close();
+
+        System.out.printf("%d idle sessions connected in %d ms%n", sessions,
+                          connectMillis);
+        System.out.printf("Heap: %.1f MB before, %.1f MB with sessions "
+                          + "(%d bytes/session; max %.1f MB)%n",
+                          heap0 / 1e6, heap1 / 1e6,
+                          (heap1 - heap0) / sessions,
+                          Runtime.getRuntime().maxMemory() / 1e6);
+        System.out.printf("Threads: %d before, %d with sessions%n", threads0,
+                          threads1);
+        System.out.printf("Game beside them: %.1f ms, %s%n", playMillis,
+                          output.contains(" wins.") ? "completed" : "FAILED");
+        if (!output.contains(" wins.")) {
+            System.exit(1);
+        }
+    }
+
+    /** Play a game between two AIs in a new session on PORT, and return
+     *  its output. */
+    private static String play(int port) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(),
+                                        port)) {
+            socket.getOutputStream().write(
+                "depth 2\nauto White\nstart\nquit\n"
+                .getBytes(StandardCharsets.UTF_8));
+            InputStream in = socket.getInputStream();
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /** Connect N clients to PORT, print "connected", and then hold the
+     *  connections open until the end of the standard input. */
+    private static void holdClients(int port, int n) throws IOException {
+        InetSocketAddress address =
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+        ArrayList<SocketChannel> channels = new ArrayList<>();
+        for (int i = 0; i < n; i += 1) {
+            channels.add(SocketChannel.open(address));
+        }
+        System.out.println("connected");
+        System.out.flush();
+        while (System.in.read() >= 0) {
+            continue;
+        }
+        for (SocketChannel channel : channels) {
+            channel.close();
+        }
+    }
+
+    /** Return the bytes of heap in use after a garbage collection. */
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        memory.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,192 @@
+package qirkat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Tests of the game server, over the loopback interface.
+ *  @author Adish Jain
+ */
+public class ServerTest {
+
+    /** Commands of a session in which two AIs play a game. */
+    private static final String SELF_PLAY =
+        "seed 1\ndepth 2\nauto White\nstart\ndump\nquit\n";
+
+    /** Start a server on a free port, serving on a new thread. */
+    private static Server start() throws IOException {
+        Server server = new Server(0);
+        Thread thread = new Thread(() -> {
+            try {
+                server.serve();
+            } catch (IOException excp) {
+                throw new IllegalStateException(excp);
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        return server;
+    }
+
+    /** Send SCRIPT to a new session of SERVER, closing our side of the
+     *  connection afterwards iff CLOSE, and return all the session's
+     *  output. */
+    private static String session(Server server, String script,
+                                  boolean close) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(),
+                                        server.port())) {
+            OutputStream out = socket.getOutputStream();
+            out.write(script.getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            if (close) {
+                socket.shutdownOutput();
+            }
+            ByteArrayOutputStream result = new ByteArrayOutputStream();
+            InputStream in = socket.getInputStream();
+            byte[] buf = new byte[1 << 12];
+            for (int n = in.read(buf); n >= 0; n = in.read(buf)) {
+                result.write(buf, 0, n);
+            }
+            return result.toString(StandardCharsets.UTF_8);
+        }
+    }
+
+    /** Return the output of a session reading commands from SCRIPT
+     *  directly. */
+    private static String local(String script) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true);
+        Game game = new Game(new Board(),
+                             new ReaderSource(new StringReader(script),
+                                              false),
+                             new TextReporter(out), out);
+        game.execute("hash " + Server.SESSION_HASH_MEGABYTES);
+        game.process();
+        return bytes.toString();
+    }
+
+    @Test
+    public void testCommands() throws IOException {
+        Server server = start();
+        try {
+            assertEquals("===\n" + new Board() + "\n===\n",
+                         session(server, "dump\r\nquit\ndump\n", false));
+            assertEquals("Command not understood\n",
+                         session(server, "frob", true));
+            assertEquals("", session(server, "", true));
+            assertEquals(String.format("table size must be between 0 and "
+                                       + "%d megabytes\n",
+                                       Server.MAX_SESSION_HASH_MEGABYTES),
+                         session(server, "hash 100000\nhash "
+                                 + Server.MAX_SESSION_HASH_MEGABYTES
+                                 + "\n", true));
+            assertEquals("Command not understood\n",
+                         session(server, "x".repeat(Server.MAX_LINE_LENGTH)
+                                 + "dump\n", true));
+            assertEquals("files are not available here\n".repeat(3),
+                         session(server, "load help.txt\nweights x\n"
+                                 + "book x\nbook off\n", true));
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void testConcurrentSessions() throws Exception {
+        String expected = local(SELF_PLAY);
+        assertTrue(expected, expected.contains(" wins."));
+        Server server = start();
+        try {
+            final int sessions = 4;
+            String[] outputs = new String[sessions];
+            Thread[] threads = new Thread[sessions];
+            for (int i = 0; i < sessions; i += 1) {
+                final int k = i;
+                threads[i] = new Thread(() -> {
+                    try {
+                        outputs[k] = session(server, SELF_PLAY, false);
+                    } catch (IOException excp) {
+                        outputs[k] = excp.toString();
+                    }
+                });
+                threads[i].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            for (String output : outputs) {
+                assertEquals(expected, output);
+            }
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void testFlowControl() throws IOException {
+        final int dumps = 20 * Server.MAX_PENDING_LINES;
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < dumps; i += 1) {
+            script.append("dump\n");
+        }
+        Server server = start();
+        try {
+            String output = session(server, script.toString(), true);
+            assertEquals(2 * dumps, output.split("===", -1).length - 1);
+            assertEquals(output.length(),
+                         dumps * local("dump\n").length());
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void testIdleSessions() throws Exception {
+        final int idle = 200;
+        Server server = start();
+        try {
+            int threads = Thread.activeCount();
+            ArrayList<SocketChannel> clients = new ArrayList<>();
+            for (int i = 0; i < idle; i += 1) {
+                clients.add(SocketChannel.open(
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                                          server.port())));
+            }
+            awaitSessions(server, idle);
+            assertTrue(Thread.activeCount() - threads
+                       <= 2 * Runtime.getRuntime().availableProcessors());
+            assertEquals(local(SELF_PLAY),
+                         session(server, SELF_PLAY, false));
+            for (SocketChannel client : clients) {
+                client.close();
+            }
+            awaitSessions(server, 0);
+        } finally {
+            server.close();
+        }
+    }
+
+    /** Wait until SERVER has N sessions not yet over. */
+    private static void awaitSessions(Server server, int n)
+        throws InterruptedException {
+        for (int i = 0; server.sessions() != n; i += 1) {
+            assertTrue("sessions: " + server.sessions(), i < TIMEOUT);
+            Thread.sleep(1);
+        }
+    }
+
+    /** Number of milliseconds to wait for sessions to start or end. */
+    private static final int TIMEOUT = 10000;
+}
@@ -1,27 +1,41 @@
 package qirkat;
 
-/** A Reporter that uses System.out for messages.
+import java.io.PrintStream;
+
+/** A Reporter that prints messages on a PrintStream (by default,
+ *  System.out).
  *  @author P. N. Hilfinger
  */
 class TextReporter implements Reporter {
 
+    /** A Reporter that prints on System.out. */
+    TextReporter() {
+        this(System.out);
+    }
+
+    /** A Reporter that prints on OUT. */
+    TextReporter(PrintStream out) {
+        _out = out;
+    }
+
     @Override
     public void errMsg(String format, Object... args) {
-        System.out.printf(format, args);
-        System.out.println();
+        _out.printf(format, args);
+        _out.println();
     }
 
     @Override
     public void outcomeMsg(String format, Object... args) {
-        System.out.printf(format, args);
-        System.out.println();
+        _out.printf(format, args);
+        _out.println();
     }
 
     @Override
     public void moveMsg(String format, Object... args) {
-        System.out.printf(format, args);
-        System.out.println();
+        _out.printf(format, args);
+        _out.println();
     }
 
+    /** Where messages go. */
+    private final PrintStream _out;
 }
-
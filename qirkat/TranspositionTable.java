@@ -0,0 +1,178 @@
+package qirkat;
+
+import java.util.Arrays;
+
+/** A fixed-size table of the results of earlier searches, indexed by the
+ *  Zobrist keys of positions (see Board.key()).  All storage is allocated
+ *  when the table is created, so storing and probing allocate nothing.
+ *
+ *  The table is divided into buckets of two entries.  The first entry of
+ *  a bucket is "depth-preferred": it is replaced only by a search at
+ *  least as deep, or when it was left by an earlier search.  The second
+ *  is "always-replace" and holds whatever did not go into the first.
+ *  Scores are from the point of view of the player to move, as in AI.
+ *
+ *  Several search threads may use one table at once without locking.
+ *  The depth, bound, score, and age of an entry are packed into a single
+ *  long, and the entry's key is stored exclusive-or'ed with that long, so
+ *  that an entry torn by two simultaneous stores fails to match any key
+ *  and is ignored.  Best moves (as MoveCodes) are stored separately and are
+ *  therefore only hints, which a search must check against the legal
+ *  moves.
+ *  @author Adish Jain
+ */
+class TranspositionTable {
+
+    /** The kind of bound a stored score represents. */
+    static enum Bound {
+        /** The score is the exact value of the position. */
+        EXACT,
+        /** The search failed high: the value is at least the score. */
+        LOWER,
+        /** The search failed low: the value is at most the score. */
+        UPPER;
+    }
+
+    /** Approximate number of bytes used by one entry. */
+    static final int ENTRY_BYTES = 24;
+
+    /** Default size of a table, in megabytes. */
+    static final int DEFAULT_MEGABYTES = 16;
+
+    /** Largest size of a table allowed by Game's 'hash' command, in
+     *  megabytes. */
+    static final int MAX_MEGABYTES = 1 << 10;
+
+    /** A table using at most about MEGABYTES megabytes (at least one
+     *  bucket). */
+    TranspositionTable(int megabytes) {
+        long budget = (long) megabytes << 20;
+        int buckets = 1;
+        while ((long) buckets * 2 * 2 * ENTRY_BYTES <= budget
+               && buckets < MAX_BUCKETS) {
+            buckets *= 2;
+        }
+        _mask = buckets - 1;
+        _keys = new long[2 * buckets];
+        _data = new long[2 * buckets];
+        _moves = new long[2 * buckets];
+    }
+
+    /** Return the number of entries in this table. */
+    int size() {
+        return _keys.length;
+    }
+
+    /** Remove all entries. */
+    void clear() {
+        Arrays.fill(_keys, 0);
+        Arrays.fill(_data, 0);
+        Arrays.fill(_moves, MoveCode.NONE);
+    }
+
+    /** Indicate that a new search is starting.  Entries from earlier
+     *  searches remain available, but may be replaced by shallower
+     *  ones. */
+    void newSearch() {
+        _age = (_age + 1) & AGE_MASK;
+    }
+
+    /** Return the entry for the position with Zobrist key KEY, or 0 if
+     *  there is none, and set BEST[0] to the code of the best move
+     *  recorded with it (MoveCode.NONE if none).  The parts of the entry
+     *  are extracted with depth, bound, and score. */
+    long probe(long key, long[] best) {
+        int slot = bucket(key);
+        long data = entry(slot, key);
+        if (data == 0) {
+            slot += 1;
+            data = entry(slot, key);
+        }
+        best[0] = data == 0 ? MoveCode.NONE : _moves[slot];
+        return data;
+    }
+
+    /** Return the search depth recorded in ENTRY. */
+    static int depth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & DEPTH_MASK;
+    }
+
+    /** Return the kind of bound recorded in ENTRY. */
+    static Bound bound(long entry) {
+        return BOUNDS[((int) (entry >>> BOUND_SHIFT) & BOUND_MASK) - 1];
+    }
+
+    /** Return the score recorded in ENTRY. */
+    static int score(long entry) {
+        return (int) entry;
+    }
+
+    /** Record that a search of depth DEPTH of the position with Zobrist
+     *  key KEY found a score of SCORE (a bound of kind BOUND) and best
+     *  move with code BEST (possibly MoveCode.NONE). */
+    void store(long key, int depth, Bound bound, int score, long best) {
+        int slot = bucket(key);
+        long old = _data[slot];
+        if ((_keys[slot] ^ old) != key && depth(old) > depth
+            && age(old) == _age) {
+            slot += 1;
+        }
+        if (best == MoveCode.NONE && (_keys[slot] ^ _data[slot]) == key) {
+            best = _moves[slot];
+        }
+        long data = (score & SCORE_MASK)
+            | ((long) depth << DEPTH_SHIFT)
+            | ((long) (bound.ordinal() + 1) << BOUND_SHIFT)
+            | ((long) _age << AGE_SHIFT);
+        _moves[slot] = best;
+        _data[slot] = data;
+        _keys[slot] = key ^ data;
+    }
+
+    /** Return the data of entry SLOT if it is for the position with
+     *  Zobrist key KEY, and otherwise 0.  The data are read once, so that
+     *  the value checked against KEY is the one returned, even if another
+     *  thread stores into SLOT meanwhile. */
+    private long entry(int slot, long key) {
+        long data = _data[slot];
+        return data != 0 && (_keys[slot] ^ data) == key ? data : 0;
+    }
+
+    /** Return the index of the first entry of KEY's bucket. */
+    private int bucket(long key) {
+        return 2 * ((int) (key ^ (key >>> 32)) & _mask);
+    }
+
+    /** Return the age recorded in ENTRY. */
+    private static int age(long entry) {
+        return (int) (entry >>> AGE_SHIFT) & AGE_MASK;
+    }
+
+    /** Layout of an entry: score in bits 0-31, depth in bits 32-39,
+     *  bound (ordinal + 1, so that no used entry is 0) in bits 40-41,
+     *  and age in bits 48-55. */
+    private static final int
+        DEPTH_SHIFT = 32, DEPTH_MASK = 0xff,
+        BOUND_SHIFT = 40, BOUND_MASK = 0x3,
+        AGE_SHIFT = 48, AGE_MASK = 0xff;
+
+    /** Mask of the score bits of an entry. */
+    private static final long SCORE_MASK = 0xffffffffL;
+
+    /** The Bound values, by ordinal. */
+    private static final Bound[] BOUNDS = Bound.values();
+
+    /** Largest number of buckets. */
+    private static final int MAX_BUCKETS = 1 << 28;
+
+    /** Mask giving the bucket number from a hash. */
+    private final int _mask;
+    /** Keys of the entries, each exclusive-or'ed with its _data. */
+    private final long[] _keys;
+    /** Packed depth, bound, score, and age of the entries (0 if unused). */
+    private final long[] _data;
+    /** Codes of the best moves of the entries. */
+    private final long[] _moves;
+    /** Number of the current search (modulo 256). */
+    private int _age;
+}
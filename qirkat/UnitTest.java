@@ -11,7 +11,14 @@ public class UnitTest {
      *  the arguments of runClasses to run other JUnit tests. */
     public static void main(String[] ignored) {
         System.exit(textui.runClasses(MoveTest.class,
-                                      CommandTest.class));
+                                      CommandTest.class,
+                                      PerftTest.class,
+                                      EvaluatorTest.class,
+                                      AITest.class,
+                                      SelfPlayTest.class,
+                                      GameTest.class,
+                                      ServerTest.class,
+                                      OpeningBookTest.class));
     }
 
 }